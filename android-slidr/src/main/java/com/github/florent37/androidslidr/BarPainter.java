@@ -0,0 +1,157 @@
+package com.github.florent37.androidslidr;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+
+/**
+ * Collects the colored segments of a bar, from the left, then draws them with one path per color :
+ * each pixel is painted once, adjacent segments of the same color are merged,
+ * and the number of draw calls only depends on the number of colors.
+ * Paths are reused from a frame to another
+ */
+final class BarPainter {
+
+    private Path[] paths = new Path[4];
+    private int[] colors = new int[4];
+    private int colorCount;
+
+    private float top;
+    private float bottom;
+    private float left;
+    private final RectF oval = new RectF();
+
+    private boolean hasOverride;
+    private boolean overrideAdded;
+    private float overrideStart;
+    private float overrideEnd;
+    private int overrideColor;
+
+    private boolean hasRun;
+    private float runStart;
+    private float runEnd;
+    private int runColor;
+
+    /**
+     * @param left x of the start of the bar, segments are relative to it
+     */
+    void begin(float left, float top, float bottom) {
+        for (int i = 0; i < colorCount; ++i) {
+            paths[i].rewind();
+        }
+        colorCount = 0;
+        this.left = left;
+        this.top = top;
+        this.bottom = bottom;
+        this.hasRun = false;
+        this.hasOverride = false;
+    }
+
+    /**
+     * This color replaces the segments added after between start and end, set before adding them
+     */
+    void override(float start, float end, int color) {
+        this.hasOverride = end > start;
+        this.overrideAdded = false;
+        this.overrideStart = start;
+        this.overrideEnd = end;
+        this.overrideColor = color;
+    }
+
+    /**
+     * Segments must be added from the left and must not overlap, empty segments are ignored
+     */
+    void segment(float start, float end, int color) {
+        if (end <= start) {
+            return;
+        }
+        if (!hasOverride) {
+            addRun(start, end, color);
+            return;
+        }
+        if (start < overrideStart) {
+            addRun(start, Math.min(end, overrideStart), color);
+        }
+        if (!overrideAdded && end > overrideStart) {
+            overrideAdded = true;
+            addRun(overrideStart, overrideEnd, overrideColor);
+        }
+        if (end > overrideEnd) {
+            addRun(Math.max(start, overrideEnd), end, color);
+        }
+    }
+
+    private void addRun(float start, float end, int color) {
+        if (end <= start) {
+            return;
+        }
+        if (hasRun && color == runColor && start <= runEnd) {
+            runEnd = Math.max(runEnd, end);
+            return;
+        }
+        flushRun();
+        hasRun = true;
+        runStart = start;
+        runEnd = end;
+        runColor = color;
+    }
+
+    /**
+     * Half disc closing the bar outside of its segments, centered on x (relative to the start of the bar)
+     *
+     * @param leftSide the left end of the bar, else the right one
+     */
+    void cap(float x, float radius, int color, boolean leftSide) {
+        final float centerY = (top + bottom) / 2f;
+        oval.set(left + x - radius, centerY - radius, left + x + radius, centerY + radius);
+        //an open arc is closed by its chord when filled
+        pathOf(color).addArc(oval, leftSide ? 90 : 270, 180);
+    }
+
+    /**
+     * Drops the paths, created again by the next frames
+     */
+    void trim() {
+        paths = new Path[4];
+        colors = new int[4];
+        colorCount = 0;
+        hasRun = false;
+    }
+
+    void draw(Canvas canvas, Paint paint) {
+        flushRun();
+        for (int i = 0; i < colorCount; ++i) {
+            paint.setColor(colors[i]);
+            canvas.drawPath(paths[i], paint);
+        }
+    }
+
+    private void flushRun() {
+        if (hasRun) {
+            hasRun = false;
+            pathOf(runColor).addRect(left + runStart, top, left + runEnd, bottom, Path.Direction.CW);
+        }
+    }
+
+    private Path pathOf(int color) {
+        for (int i = 0; i < colorCount; ++i) {
+            if (colors[i] == color) {
+                return paths[i];
+            }
+        }
+        if (colorCount == paths.length) {
+            final Path[] grownPaths = new Path[colorCount * 2];
+            System.arraycopy(paths, 0, grownPaths, 0, colorCount);
+            paths = grownPaths;
+            final int[] grownColors = new int[colorCount * 2];
+            System.arraycopy(colors, 0, grownColors, 0, colorCount);
+            colors = grownColors;
+        }
+        if (paths[colorCount] == null) {
+            paths[colorCount] = new Path();
+        }
+        colors[colorCount] = color;
+        return paths[colorCount++];
+    }
+}
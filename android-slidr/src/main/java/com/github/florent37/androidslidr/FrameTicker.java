@@ -0,0 +1,150 @@
+package com.github.florent37.androidslidr;
+
+import android.animation.ValueAnimator;
+import android.content.ComponentCallbacks2;
+import android.view.animation.AnimationUtils;
+import android.view.animation.LinearInterpolator;
+
+/**
+ * One frame clock shared by every animating slidr / sushi of the process : a single animator,
+ * running only while at least one callback is registered, calls all the callbacks on each frame.
+ * Main thread only
+ */
+final class FrameTicker implements ValueAnimator.AnimatorUpdateListener, MemoryTrimmer.Trimmable {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private static FrameTicker instance;
+
+    private ValueAnimator animator;
+    private Callback[] callbacks = new Callback[INITIAL_CAPACITY];
+    private int count;
+    private boolean dispatching;
+
+    static FrameTicker getInstance() {
+        if (instance == null) {
+            instance = new FrameTicker();
+            MemoryTrimmer.register(instance);
+        }
+        return instance;
+    }
+
+    private FrameTicker() {
+    }
+
+    /**
+     * The callback is called from the next frame, until it returns false or is removed
+     */
+    void add(Callback callback) {
+        for (int i = 0; i < count; ++i) {
+            if (callbacks[i] == callback) {
+                return;
+            }
+        }
+        if (count == callbacks.length) {
+            final Callback[] grown = new Callback[count * 2];
+            System.arraycopy(callbacks, 0, grown, 0, count);
+            callbacks = grown;
+        }
+        callbacks[count++] = callback;
+
+        if (animator == null) {
+            animator = ValueAnimator.ofFloat(0f, 1f);
+            animator.setDuration(1000);
+            animator.setInterpolator(new LinearInterpolator());
+            animator.setRepeatCount(ValueAnimator.INFINITE);
+            animator.addUpdateListener(this);
+        }
+        if (!animator.isStarted()) {
+            animator.start();
+        }
+    }
+
+    void remove(Callback callback) {
+        for (int i = 0; i < count; ++i) {
+            if (callbacks[i] == callback) {
+                if (dispatching) {
+                    //compacted at the end of the frame
+                    callbacks[i] = null;
+                } else {
+                    System.arraycopy(callbacks, i + 1, callbacks, i, count - i - 1);
+                    callbacks[--count] = null;
+                    stopIfIdle();
+                }
+                return;
+            }
+        }
+    }
+
+    boolean contains(Callback callback) {
+        for (int i = 0; i < count; ++i) {
+            if (callbacks[i] == callback) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void onAnimationUpdate(ValueAnimator animation) {
+        doFrame(AnimationUtils.currentAnimationTimeMillis());
+    }
+
+    /**
+     * Calls every callback for this frame, the tests drive the frames through it
+     */
+    void doFrame(long frameTime) {
+        dispatching = true;
+        final int dispatched = count;
+        int kept = 0;
+        for (int i = 0; i < dispatched; ++i) {
+            final Callback callback = callbacks[i];
+            if (callback != null && callback.doFrame(frameTime) && callbacks[i] == callback) {
+                callbacks[kept++] = callback;
+            }
+        }
+        //added during this frame
+        for (int i = dispatched; i < count; ++i) {
+            if (callbacks[i] != null) {
+                callbacks[kept++] = callbacks[i];
+            }
+        }
+        for (int i = kept; i < count; ++i) {
+            callbacks[i] = null;
+        }
+        count = kept;
+        dispatching = false;
+        stopIfIdle();
+    }
+
+    /**
+     * When idle : the callbacks array shrinks back, the animator is released once the UI is hidden
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        if (count > 0) {
+            return;
+        }
+        if (callbacks.length > INITIAL_CAPACITY) {
+            callbacks = new Callback[INITIAL_CAPACITY];
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN && animator != null) {
+            animator.removeAllUpdateListeners();
+            animator = null;
+        }
+    }
+
+    private void stopIfIdle() {
+        if (count == 0 && animator != null && animator.isStarted()) {
+            animator.cancel();
+        }
+    }
+
+    interface Callback {
+        /**
+         * @param frameTimeMillis same time base as {@link AnimationUtils#currentAnimationTimeMillis()}
+         * @return true to be called again on the next frame
+         */
+        boolean doFrame(long frameTimeMillis);
+    }
+}
@@ -0,0 +1,202 @@
+package com.github.florent37.androidslidr;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+
+/**
+ * Distribution of values drawn behind a bar.
+ * Values are counted in fine bins along the bar (following the scale), the fine bins are merged into
+ * the drawn buckets : a width change only merges the fine bins again, the raw values are only scanned
+ * again when the range or the scale changes. An added value only updates its fine bin and its bucket.
+ * A fine bin on the boundary of two buckets is split between them in proportion, so every bucket covers
+ * the same width of fine bins whatever the bucket count
+ */
+final class Histogram {
+
+    private static final int FINE_BINS = 1024;
+
+    private float[] values = new float[64];
+    private int count;
+
+    private final int[] fineBins = new int[FINE_BINS];
+    private Scale scale;
+    private float min;
+    private float max;
+    private boolean binned = false;
+
+    private float[] buckets = new float[0];
+    private int bucketCount;
+    private float maxBucket;
+
+    private final Path path = new Path();
+    private boolean pathDirty = true;
+    private float pathLeft;
+    private float pathBottom;
+    private float pathWidth;
+    private float pathHeight;
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    void clear() {
+        count = 0;
+        for (int i = 0; i < FINE_BINS; ++i) {
+            fineBins[i] = 0;
+        }
+        for (int i = 0; i < bucketCount; ++i) {
+            buckets[i] = 0;
+        }
+        maxBucket = 0;
+        pathDirty = true;
+    }
+
+    void add(float[] newValues, int offset, int length) {
+        if (count + length > values.length) {
+            final float[] grown = new float[Math.max(values.length * 2, count + length)];
+            System.arraycopy(values, 0, grown, 0, count);
+            values = grown;
+        }
+        System.arraycopy(newValues, offset, values, count, length);
+        count += length;
+
+        if (binned) {
+            for (int i = offset; i < offset + length; ++i) {
+                bin(newValues[i]);
+            }
+            pathDirty = true;
+        }
+    }
+
+    void add(float value) {
+        if (count == values.length) {
+            final float[] grown = new float[values.length * 2];
+            System.arraycopy(values, 0, grown, 0, count);
+            values = grown;
+        }
+        values[count++] = value;
+
+        if (binned) {
+            bin(value);
+            pathDirty = true;
+        }
+    }
+
+    /**
+     * Bins the values again only if the range or the scale changed, merges the fine bins if the bucket count changed
+     */
+    void layout(Scale scale, float min, float max, int bucketCount) {
+        bucketCount = Math.max(1, Math.min(FINE_BINS, bucketCount));
+        if (!binned || scale != this.scale || min != this.min || max != this.max) {
+            this.scale = scale;
+            this.min = min;
+            this.max = max;
+            this.binned = max > min;
+            for (int i = 0; i < FINE_BINS; ++i) {
+                fineBins[i] = 0;
+            }
+            if (binned) {
+                for (int i = 0; i < count; ++i) {
+                    final int fine = fineBin(values[i]);
+                    if (fine >= 0) {
+                        fineBins[fine]++;
+                    }
+                }
+            }
+            this.bucketCount = -1;
+        }
+        if (bucketCount != this.bucketCount) {
+            this.bucketCount = bucketCount;
+            if (buckets.length < bucketCount) {
+                buckets = new float[bucketCount];
+            }
+            for (int i = 0; i < bucketCount; ++i) {
+                buckets[i] = 0;
+            }
+            maxBucket = 0;
+            for (int fine = 0; fine < FINE_BINS; ++fine) {
+                if (fineBins[fine] > 0) {
+                    addToBuckets(fine, fineBins[fine]);
+                }
+            }
+            pathDirty = true;
+        }
+    }
+
+    /**
+     * @return -1 if the value is outside of the range
+     */
+    private int fineBin(float value) {
+        if (value < min || value > max) {
+            return -1;
+        }
+        final float fraction = scale.toFraction(value, min, max);
+        return Math.max(0, Math.min(FINE_BINS - 1, (int) (fraction * FINE_BINS)));
+    }
+
+    private void bin(float value) {
+        final int fine = fineBin(value);
+        if (fine < 0) {
+            return;
+        }
+        fineBins[fine]++;
+        if (bucketCount > 0) {
+            addToBuckets(fine, 1);
+        }
+    }
+
+    /**
+     * The fine bin covers [fine, fine + 1] * bucketCount / FINE_BINS in buckets : at most two buckets,
+     * as there are no more buckets than fine bins
+     */
+    private void addToBuckets(int fine, float count) {
+        final int start = fine * bucketCount;
+        final int end = start + bucketCount;
+        final int bucket = start / FINE_BINS;
+        final int boundary = (bucket + 1) * FINE_BINS;
+        if (end <= boundary) {
+            buckets[bucket] += count;
+            maxBucket = Math.max(maxBucket, buckets[bucket]);
+        } else {
+            final float inFirst = count * (boundary - start) / bucketCount;
+            buckets[bucket] += inFirst;
+            buckets[bucket + 1] += count - inFirst;
+            maxBucket = Math.max(maxBucket, Math.max(buckets[bucket], buckets[bucket + 1]));
+        }
+    }
+
+    /**
+     * Frees the path, built again on the next draw. The values are kept
+     */
+    void trim() {
+        path.reset();
+        pathDirty = true;
+    }
+
+    /**
+     * All the buckets in one path, the highest bucket is height tall
+     */
+    void draw(Canvas canvas, float left, float bottom, float width, float height, Paint paint) {
+        if (maxBucket == 0 || bucketCount <= 0) {
+            return;
+        }
+        if (pathDirty || left != pathLeft || bottom != pathBottom || width != pathWidth || height != pathHeight) {
+            pathLeft = left;
+            pathBottom = bottom;
+            pathWidth = width;
+            pathHeight = height;
+            pathDirty = false;
+
+            path.rewind();
+            final float bucketWidth = width / bucketCount;
+            for (int i = 0; i < bucketCount; ++i) {
+                if (buckets[i] > 0) {
+                    final float bucketLeft = left + i * bucketWidth;
+                    path.addRect(bucketLeft, bottom - height * buckets[i] / maxBucket, bucketLeft + bucketWidth, bottom, Path.Direction.CW);
+                }
+            }
+        }
+        canvas.drawPath(path, paint);
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.florent37.androidslidr;
+
+import android.animation.TimeInterpolator;
+import android.support.annotation.Nullable;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.AnimationUtils;
+
+/**
+ * Moves the indicator of a slidr from a value to another, on the shared {@link FrameTicker}.
+ * Starting a new animation cancels the running one
+ */
+final class IndicatorAnimator implements FrameTicker.Callback {
+
+    static final long DEFAULT_DURATION = 300;
+    private static final TimeInterpolator DEFAULT_INTERPOLATOR = new AccelerateDecelerateInterpolator();
+
+    private final Target target;
+    private TimeInterpolator interpolator = DEFAULT_INTERPOLATOR;
+    private boolean running;
+    private long startTime;
+    private long duration;
+    private float from;
+    private float to;
+
+    IndicatorAnimator(Target target) {
+        this.target = target;
+    }
+
+    void animate(float from, float to, long duration, @Nullable TimeInterpolator interpolator) {
+        this.from = from;
+        this.to = to;
+        this.duration = duration;
+        this.interpolator = interpolator != null ? interpolator : DEFAULT_INTERPOLATOR;
+        this.startTime = AnimationUtils.currentAnimationTimeMillis();
+        this.running = true;
+        FrameTicker.getInstance().add(this);
+    }
+
+    void cancel() {
+        if (running) {
+            running = false;
+            FrameTicker.getInstance().remove(this);
+        }
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public boolean doFrame(long frameTimeMillis) {
+        if (!running) {
+            return false;
+        }
+        final float fraction = duration <= 0 ? 1f : Math.min(1f, (frameTimeMillis - startTime) / (float) duration);
+        running = fraction < 1f;
+        target.onAnimatedValue(from + (to - from) * interpolator.getInterpolation(fraction));
+        return running;
+    }
+
+    interface Target {
+        void onAnimatedValue(float value);
+    }
+}
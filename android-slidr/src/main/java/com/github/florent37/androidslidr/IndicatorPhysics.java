@@ -0,0 +1,156 @@
+package com.github.florent37.androidslidr;
+
+import android.view.animation.AnimationUtils;
+
+/**
+ * Keeps the indicator moving after the finger is released : a fling slowed down by friction,
+ * then a spring pulling the indicator to its snap position, if any.
+ * Positions are in pixels along the bar, one step per frame of the shared {@link FrameTicker}, without allocation
+ */
+final class IndicatorPhysics implements FrameTicker.Callback {
+
+    //velocity divided by e every 1/FRICTION second, a fling travels velocity / FRICTION pixels
+    private static final float FRICTION = 4f;
+    //below this velocity (px/s) the fling ends and the spring takes over
+    private static final float FLING_END_VELOCITY = 150f;
+    //critically damped spring
+    private static final float SPRING_STIFFNESS = 220f;
+    private static final float SPRING_DAMPING = 2f * (float) Math.sqrt(SPRING_STIFFNESS);
+    private static final float SETTLE_DISTANCE = 0.5f;
+    private static final float SETTLE_VELOCITY = 10f;
+    //integration sub step, the spring is unstable with long frames
+    private static final float MAX_STEP = 0.004f;
+    private static final float MAX_FRAME = 0.05f;
+
+    private final Target target;
+
+    private boolean running;
+    private boolean flinging;
+    private boolean snapping;
+    private float x;
+    private float velocity;
+    private float snapX;
+    private float maxX;
+    private long lastFrameTime;
+
+    /**
+     * @param velocity in pixels per second
+     * @return how far a fling started at this velocity travels, without the ends of the bar
+     */
+    static float flingDistance(float velocity) {
+        if (Math.abs(velocity) < FLING_END_VELOCITY) {
+            return 0;
+        }
+        return (velocity - Math.signum(velocity) * FLING_END_VELOCITY) / FRICTION;
+    }
+
+    IndicatorPhysics(Target target) {
+        this.target = target;
+    }
+
+    /**
+     * @param velocity in pixels per second, 0 : only snaps
+     * @param maxX     width of the bar, the indicator stops at its ends
+     */
+    void start(float x, float velocity, float maxX) {
+        cancel();
+        this.x = x;
+        this.velocity = velocity;
+        this.maxX = maxX;
+        this.flinging = Math.abs(velocity) >= FLING_END_VELOCITY;
+        this.snapping = false;
+        if (!flinging && !startSpring()) {
+            target.onPhysicsSettled(false);
+            return;
+        }
+        running = true;
+        lastFrameTime = AnimationUtils.currentAnimationTimeMillis();
+        FrameTicker.getInstance().add(this);
+    }
+
+    void cancel() {
+        if (running) {
+            running = false;
+            FrameTicker.getInstance().remove(this);
+        }
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return false if there is no snap position
+     */
+    private boolean startSpring() {
+        flinging = false;
+        snapX = target.snapPosition(x);
+        if (Float.isNaN(snapX)) {
+            return false;
+        }
+        snapping = true;
+        return true;
+    }
+
+    @Override
+    public boolean doFrame(long frameTimeMillis) {
+        if (!running) {
+            return false;
+        }
+        float dt = Math.min(MAX_FRAME, (frameTimeMillis - lastFrameTime) / 1000f);
+        lastFrameTime = frameTimeMillis;
+
+        while (dt > 0f && running) {
+            final float step = Math.min(MAX_STEP, dt);
+            dt -= step;
+            if (flinging) {
+                stepFling(step);
+            } else {
+                stepSpring(step);
+            }
+        }
+
+        target.onPhysicsPosition(x);
+        if (!running) {
+            target.onPhysicsSettled(snapping);
+        }
+        return running;
+    }
+
+    private void stepFling(float dt) {
+        velocity -= velocity * Math.min(1f, FRICTION * dt);
+        x += velocity * dt;
+        if (x <= 0f || x >= maxX) {
+            x = Math.max(0f, Math.min(maxX, x));
+            velocity = 0;
+        }
+        if (Math.abs(velocity) < FLING_END_VELOCITY && !startSpring()) {
+            running = false;
+        }
+    }
+
+    private void stepSpring(float dt) {
+        final float acceleration = -SPRING_STIFFNESS * (x - snapX) - SPRING_DAMPING * velocity;
+        velocity += acceleration * dt;
+        x += velocity * dt;
+        if (Math.abs(x - snapX) < SETTLE_DISTANCE && Math.abs(velocity) < SETTLE_VELOCITY) {
+            x = snapX;
+            velocity = 0;
+            running = false;
+        }
+    }
+
+    interface Target {
+        /**
+         * @return the position the indicator should snap to from x, NaN if none
+         */
+        float snapPosition(float x);
+
+        void onPhysicsPosition(float x);
+
+        /**
+         * @param snapped true if the indicator stopped on the snap position
+         */
+        void onPhysicsSettled(boolean snapped);
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.florent37.androidslidr;
+
+/**
+ * Guesses where a drag will end from the recent velocities of the finger, without allocation.
+ * A decelerating finger stops after v^2 / 2a, a steady one is extrapolated over a short horizon, a release
+ * flings as far as {@link IndicatorPhysics} would. Positions are in pixels along the bar
+ */
+final class LandingPredictor {
+
+    //extrapolation of a finger which is not slowing down, in seconds
+    private static final float HORIZON = 0.25f;
+    //weight of the newest acceleration sample
+    private static final float SMOOTHING = 0.3f;
+    //below this velocity (px/s) the finger is considered stopped
+    private static final float STILL_VELOCITY = 30f;
+
+    private float lastVelocity;
+    private long lastTime = -1;
+    private float acceleration;
+
+    private float predictedX;
+    private float confidence;
+
+    void reset() {
+        lastTime = -1;
+        lastVelocity = 0;
+        acceleration = 0;
+    }
+
+    /**
+     * @param velocity in pixels per second
+     * @param maxX     width of the bar, the prediction stays on it
+     */
+    void onMove(long timeMillis, float x, float velocity, float maxX) {
+        if (lastTime >= 0 && timeMillis > lastTime) {
+            final float sample = (velocity - lastVelocity) / ((timeMillis - lastTime) / 1000f);
+            acceleration += (sample - acceleration) * SMOOTHING;
+        }
+        lastTime = timeMillis;
+        lastVelocity = velocity;
+
+        final float distance;
+        final boolean decelerating = acceleration * velocity < 0;
+        if (Math.abs(velocity) < STILL_VELOCITY) {
+            distance = 0;
+        } else if (decelerating) {
+            distance = velocity * velocity / (2f * -acceleration);
+        } else {
+            distance = velocity * HORIZON;
+        }
+        setPrediction(x, distance, maxX, decelerating || distance == 0 ? 1f : 0.5f);
+    }
+
+    /**
+     * @param velocity of the fling, 0 if the indicator stops where it is released
+     */
+    void onRelease(float x, float velocity, float maxX) {
+        reset();
+        setPrediction(x, IndicatorPhysics.flingDistance(velocity), maxX, 1f);
+    }
+
+    /**
+     * The confidence falls with the distance left to travel (relative to the bar), weighted by how the finger moves
+     */
+    private void setPrediction(float x, float distance, float maxX, float weight) {
+        predictedX = Math.max(0, Math.min(maxX, x + distance));
+        final float travel = maxX > 0 ? Math.abs(predictedX - x) / maxX : 0;
+        confidence = weight / (1f + 10f * travel);
+    }
+
+    float getPredictedX() {
+        return predictedX;
+    }
+
+    /**
+     * @return between 0 and 1
+     */
+    float getConfidence() {
+        return confidence;
+    }
+}
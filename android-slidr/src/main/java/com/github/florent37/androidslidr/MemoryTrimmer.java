@@ -0,0 +1,63 @@
+package com.github.florent37.androidslidr;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+
+/**
+ * Registry of the caches shared by all the slidrs / sushis of the process : they shrink or clear themselves
+ * when the system asks the application to trim its memory.
+ * Registered once, on the application context, by the first view. Main thread only
+ */
+final class MemoryTrimmer implements ComponentCallbacks2 {
+
+    private static final MemoryTrimmer INSTANCE = new MemoryTrimmer();
+
+    private static boolean installed = false;
+    private static Trimmable[] caches = new Trimmable[0];
+
+    private MemoryTrimmer() {
+    }
+
+    static void install(Context context) {
+        if (!installed) {
+            installed = true;
+            context.getApplicationContext().registerComponentCallbacks(INSTANCE);
+        }
+    }
+
+    static void register(Trimmable cache) {
+        for (Trimmable registered : caches) {
+            if (registered == cache) {
+                return;
+            }
+        }
+        final Trimmable[] grown = new Trimmable[caches.length + 1];
+        System.arraycopy(caches, 0, grown, 0, caches.length);
+        grown[caches.length] = cache;
+        caches = grown;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        for (Trimmable cache : caches) {
+            cache.onTrimMemory(level);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    interface Trimmable {
+        /**
+         * @param level one of the ComponentCallbacks2.TRIM_MEMORY_* levels
+         */
+        void onTrimMemory(int level);
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.florent37.androidslidr;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single slot holding the latest value posted from any thread.
+ * Only the newest value is delivered on the main thread, at most one pending delivery at a time,
+ * so high-rate producers never flood the main looper
+ */
+final class PostedValue implements Runnable {
+
+    static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private final AtomicInteger valueBits = new AtomicInteger();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final Target target;
+
+    PostedValue(Target target) {
+        this.target = target;
+    }
+
+    void post(float value) {
+        valueBits.set(Float.floatToRawIntBits(value));
+        if (scheduled.compareAndSet(false, true)) {
+            MAIN_HANDLER.post(this);
+        }
+    }
+
+    /**
+     * Delivers the pending value now, if any
+     */
+    void flush() {
+        if (scheduled.get()) {
+            MAIN_HANDLER.removeCallbacks(this);
+            run();
+        }
+    }
+
+    void cancel() {
+        MAIN_HANDLER.removeCallbacks(this);
+        scheduled.set(false);
+    }
+
+    @Override
+    public void run() {
+        //reset before reading : a value posted after this line schedules a new delivery
+        scheduled.set(false);
+        target.onPostedValue(Float.intBitsToFloat(valueBits.get()));
+    }
+
+    interface Target {
+        void onPostedValue(float value);
+    }
+}
@@ -0,0 +1,121 @@
+package com.github.florent37.androidslidr;
+
+/**
+ * Streaming estimation of one quantile with the P-square algorithm (Jain &amp; Chlamtac) :
+ * 5 markers are adjusted on each observation, the observations are not stored
+ */
+final class QuantileSketch {
+
+    private final float quantile;
+    private final int[] positions = new int[5];
+    private final double[] desiredPositions = new double[5];
+    private final double[] increments = new double[5];
+    private final double[] heights = new double[5];
+    private int count;
+
+    QuantileSketch(float quantile) {
+        if (quantile <= 0f || quantile >= 1f) {
+            throw new IllegalArgumentException("quantile must be between 0 and 1 (excluded)");
+        }
+        this.quantile = quantile;
+        increments[0] = 0;
+        increments[1] = quantile / 2f;
+        increments[2] = quantile;
+        increments[3] = (1 + quantile) / 2f;
+        increments[4] = 1;
+    }
+
+    float getQuantile() {
+        return quantile;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    void clear() {
+        count = 0;
+    }
+
+    void add(float value) {
+        if (count < 5) {
+            //the first observations are kept sorted
+            int i = count;
+            while (i > 0 && heights[i - 1] > value) {
+                heights[i] = heights[i - 1];
+                i--;
+            }
+            heights[i] = value;
+            count++;
+            if (count == 5) {
+                for (int m = 0; m < 5; ++m) {
+                    positions[m] = m;
+                }
+                desiredPositions[0] = 0;
+                desiredPositions[1] = 2 * quantile;
+                desiredPositions[2] = 4 * quantile;
+                desiredPositions[3] = 2 + 2 * quantile;
+                desiredPositions[4] = 4;
+            }
+            return;
+        }
+
+        final int cell;
+        if (value < heights[0]) {
+            heights[0] = value;
+            cell = 0;
+        } else if (value >= heights[4]) {
+            heights[4] = value;
+            cell = 3;
+        } else {
+            int i = 1;
+            while (value >= heights[i]) {
+                i++;
+            }
+            cell = i - 1;
+        }
+
+        for (int m = cell + 1; m < 5; ++m) {
+            positions[m]++;
+        }
+        for (int m = 0; m < 5; ++m) {
+            desiredPositions[m] += increments[m];
+        }
+
+        for (int m = 1; m < 4; ++m) {
+            final double delta = desiredPositions[m] - positions[m];
+            if ((delta >= 1 && positions[m + 1] - positions[m] > 1) || (delta <= -1 && positions[m - 1] - positions[m] < -1)) {
+                final int direction = delta > 0 ? 1 : -1;
+                final double parabolic = parabolic(m, direction);
+                if (heights[m - 1] < parabolic && parabolic < heights[m + 1]) {
+                    heights[m] = parabolic;
+                } else {
+                    heights[m] = heights[m] + direction * (heights[m + direction] - heights[m]) / (positions[m + direction] - positions[m]);
+                }
+                positions[m] += direction;
+            }
+        }
+        count++;
+    }
+
+    private double parabolic(int m, int direction) {
+        final double previous = positions[m] - positions[m - 1];
+        final double next = positions[m + 1] - positions[m];
+        return heights[m] + direction / (double) (positions[m + 1] - positions[m - 1])
+                * ((previous + direction) * (heights[m + 1] - heights[m]) / next
+                + (next - direction) * (heights[m] - heights[m - 1]) / previous);
+    }
+
+    /**
+     * @return NaN without observation
+     */
+    float getEstimate() {
+        if (count == 0) {
+            return Float.NaN;
+        }
+        if (count < 5) {
+            return (float) heights[Math.round(quantile * (count - 1))];
+        }
+        return (float) heights[2];
+    }
+}
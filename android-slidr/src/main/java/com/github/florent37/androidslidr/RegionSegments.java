@@ -0,0 +1,149 @@
+package com.github.florent37.androidslidr;
+
+import java.util.Arrays;
+
+/**
+ * N regions of a bar, bounded by fixed breakpoints and by the indicator.
+ * The positions of the breakpoints are computed once per layout, the segments (bounds, colors, label anchors)
+ * are kept in primitive arrays, updated in place when the indicator moves.
+ * A label is marked stale only when the bounds of its region changed
+ */
+final class RegionSegments {
+
+    private final float[] breakpoints;
+    private final float[] breakpointX;
+    private final int[] colors;
+
+    private final float[] startX;
+    private final float[] endX;
+    private final float[] lower;
+    private final float[] upper;
+    private final boolean[] labelStale;
+    private int indicatorRegion;
+
+    /**
+     * @param colors one per region, breakpoints.length + 2 : the indicator adds a bound
+     */
+    RegionSegments(float[] breakpoints, int[] colors) {
+        if (colors.length != breakpoints.length + 2) {
+            throw new IllegalArgumentException("one color per region expected : breakpoints.length + 2");
+        }
+        this.breakpoints = breakpoints.clone();
+        Arrays.sort(this.breakpoints);
+        this.breakpointX = new float[breakpoints.length];
+        this.colors = colors.clone();
+
+        final int count = colors.length;
+        this.startX = new float[count];
+        this.endX = new float[count];
+        this.lower = new float[count];
+        this.upper = new float[count];
+        this.labelStale = new boolean[count];
+        Arrays.fill(labelStale, true);
+    }
+
+    int getCount() {
+        return colors.length;
+    }
+
+    void layout(SlidrModel model) {
+        for (int i = 0; i < breakpoints.length; ++i) {
+            breakpointX[i] = model.xOf(model.clamp(breakpoints[i]));
+        }
+    }
+
+    /**
+     * Bounds of each region, from the breakpoints and the indicator
+     */
+    void update(SlidrModel model) {
+        final float value = model.getValue();
+        final float indicatorX = model.getIndicatorX();
+        final float min = model.getMin();
+        final float max = model.getMax();
+        final int count = colors.length;
+        int breakpoint = 0;
+        boolean indicatorPlaced = false;
+        float lowerValue = min;
+        //outside of the bar when zoomed
+        float lowerX = model.xOf(min);
+        for (int i = 0; i < count; ++i) {
+            final float upperValue;
+            final float upperX;
+            if (i == count - 1) {
+                upperValue = max;
+                upperX = model.xOf(max);
+            } else if (!indicatorPlaced && (breakpoint >= breakpoints.length || value <= breakpoints[breakpoint])) {
+                upperValue = value;
+                upperX = indicatorX;
+                indicatorPlaced = true;
+                indicatorRegion = i;
+            } else {
+                upperValue = Math.max(min, Math.min(max, breakpoints[breakpoint]));
+                upperX = breakpointX[breakpoint];
+                breakpoint++;
+            }
+
+            startX[i] = lowerX;
+            endX[i] = upperX;
+            if (lower[i] != lowerValue || upper[i] != upperValue) {
+                lower[i] = lowerValue;
+                upper[i] = upperValue;
+                labelStale[i] = true;
+            }
+
+            lowerValue = upperValue;
+            lowerX = upperX;
+        }
+        if (!indicatorPlaced) {
+            indicatorRegion = count - 1;
+        }
+    }
+
+    void invalidateLabels() {
+        Arrays.fill(labelStale, true);
+    }
+
+    float getStartX(int region) {
+        return startX[region];
+    }
+
+    float getEndX(int region) {
+        return endX[region];
+    }
+
+    int getColor(int region) {
+        return colors[region];
+    }
+
+    /**
+     * Region ending at the indicator
+     */
+    int getIndicatorRegion() {
+        return indicatorRegion;
+    }
+
+    /**
+     * @param centered the size of the region, else its lower bound
+     */
+    float getLabelValue(int region, boolean centered) {
+        return centered ? upper[region] - lower[region] : lower[region];
+    }
+
+    /**
+     * @param centered the center of the region, else its start
+     */
+    float getLabelX(int region, boolean centered) {
+        return centered ? (startX[region] + endX[region]) / 2f : startX[region];
+    }
+
+    /**
+     * @return true if the bounds of the region changed since its label was formatted
+     */
+    boolean isLabelStale(int region) {
+        return labelStale[region];
+    }
+
+    void onLabelFormatted(int region) {
+        labelStale[region] = false;
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.florent37.androidslidr;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free ring buffer of primitive samples, for exactly one writer thread and one reader thread.
+ * When the writer laps the reader, the oldest samples are dropped
+ */
+final class SampleRingBuffer {
+
+    private final float[] buffer;
+    private final int mask;
+    private final AtomicLong writeCount = new AtomicLong();
+    private long readCount; //reader thread only
+
+    SampleRingBuffer(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.buffer = new float[size];
+        this.mask = size - 1;
+    }
+
+    int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Writer thread only
+     */
+    void write(float sample) {
+        final long index = writeCount.get();
+        buffer[(int) (index & mask)] = sample;
+        //publishes the sample to the reader
+        writeCount.lazySet(index + 1);
+    }
+
+    /**
+     * Reader thread only : copies the samples written since the last read into dest (length >= capacity)
+     *
+     * @return the number of samples copied, from dest[0]
+     */
+    int read(float[] dest) {
+        final long end = writeCount.get();
+        final long start = Math.max(readCount, end - buffer.length);
+        final int count = (int) (end - start);
+        for (int i = 0; i < count; ++i) {
+            dest[i] = buffer[(int) ((start + i) & mask)];
+        }
+        readCount = end;
+
+        //the writer may have overwritten (or be writing) the oldest slots while we were copying them
+        final long overwritten = writeCount.get() - buffer.length - start + 1;
+        if (overwritten > 0) {
+            final int dropped = (int) Math.min(count, overwritten);
+            System.arraycopy(dest, dropped, dest, 0, count - dropped);
+            return count - dropped;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.florent37.androidslidr;
+
+/**
+ * Maps a position on the bar (a fraction between 0 and 1) to a value between min and max, and back.
+ */
+public interface Scale {
+
+    Scale LINEAR = new Linear();
+
+    float toValue(float fraction, float min, float max);
+
+    float toFraction(float value, float min, float max);
+
+    class Linear implements Scale {
+
+        @Override
+        public float toValue(float fraction, float min, float max) {
+            return fraction * (max - min) + min;
+        }
+
+        @Override
+        public float toFraction(float value, float min, float max) {
+            return (value - min) / (max - min);
+        }
+    }
+
+    /**
+     * Logarithmic scale, shifted so that min maps to log(1) : works with min = 0
+     */
+    class Logarithmic implements Scale {
+
+        @Override
+        public float toValue(float fraction, float min, float max) {
+            return (float) (min + Math.expm1(fraction * Math.log1p(max - min)));
+        }
+
+        @Override
+        public float toFraction(float value, float min, float max) {
+            return (float) (Math.log1p(Math.max(0, value - min)) / Math.log1p(max - min));
+        }
+    }
+
+    class Power implements Scale {
+        private final float exponent;
+
+        public Power(float exponent) {
+            if (exponent <= 0) {
+                throw new IllegalArgumentException("exponent must be > 0");
+            }
+            this.exponent = exponent;
+        }
+
+        @Override
+        public float toValue(float fraction, float min, float max) {
+            return (float) (min + (max - min) * Math.pow(fraction, exponent));
+        }
+
+        @Override
+        public float toFraction(float value, float min, float max) {
+            final float linear = Math.max(0, (value - min) / (max - min));
+            return (float) Math.pow(linear, 1f / exponent);
+        }
+    }
+
+    /**
+     * Linear between breakpoints : fractions[i] of the bar displays values[i].
+     * min and max are implicitly placed at fraction 0 and 1
+     */
+    class Piecewise implements Scale {
+        private final float[] fractions;
+        private final float[] values;
+
+        public Piecewise(float[] fractions, float[] values) {
+            if (fractions.length != values.length) {
+                throw new IllegalArgumentException("fractions and values must have the same length");
+            }
+            for (int i = 0; i < fractions.length; ++i) {
+                if (fractions[i] <= 0 || fractions[i] >= 1 || (i > 0 && (fractions[i] <= fractions[i - 1] || values[i] < values[i - 1]))) {
+                    throw new IllegalArgumentException("breakpoints must be strictly increasing, inside ]0, 1[");
+                }
+            }
+            this.fractions = fractions.clone();
+            this.values = values.clone();
+        }
+
+        private float fractionAt(int i) {
+            if (i == 0) {
+                return 0;
+            } else if (i > fractions.length) {
+                return 1;
+            }
+            return fractions[i - 1];
+        }
+
+        private float valueAt(int i, float min, float max) {
+            if (i == 0) {
+                return min;
+            } else if (i > values.length) {
+                return max;
+            }
+            return values[i - 1];
+        }
+
+        @Override
+        public float toValue(float fraction, float min, float max) {
+            int i = 0;
+            while (i < fractions.length && fraction > fractions[i]) {
+                i++;
+            }
+            final float startFraction = fractionAt(i);
+            final float endFraction = fractionAt(i + 1);
+            final float startValue = valueAt(i, min, max);
+            final float endValue = valueAt(i + 1, min, max);
+            return startValue + (fraction - startFraction) / (endFraction - startFraction) * (endValue - startValue);
+        }
+
+        @Override
+        public float toFraction(float value, float min, float max) {
+            int i = 0;
+            while (i < values.length && value > values[i]) {
+                i++;
+            }
+            final float startFraction = fractionAt(i);
+            final float endFraction = fractionAt(i + 1);
+            final float startValue = valueAt(i, min, max);
+            final float endValue = valueAt(i + 1, min, max);
+            if (endValue == startValue) {
+                return startFraction;
+            }
+            return startFraction + (value - startValue) / (endValue - startValue) * (endFraction - startFraction);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.florent37.androidslidr;
+
+/**
+ * Pixel <-> value mapping of a bar, following a {@link Scale}.
+ * When the lookup table is enabled, the values of each pixel are computed once per width / range,
+ * so a touch move only costs a table lookup
+ */
+final class ScaleTable {
+
+    private Scale scale = Scale.LINEAR;
+    private boolean lookupTableEnabled = false;
+
+    private float[] table;
+    private int tableWidth = -1;
+    private float tableMin;
+    private float tableMax;
+
+    Scale getScale() {
+        return scale;
+    }
+
+    void setScale(Scale scale) {
+        this.scale = scale != null ? scale : Scale.LINEAR;
+        this.tableWidth = -1;
+    }
+
+    void setLookupTableEnabled(boolean lookupTableEnabled) {
+        this.lookupTableEnabled = lookupTableEnabled;
+        if (!lookupTableEnabled) {
+            this.table = null;
+            this.tableWidth = -1;
+        }
+    }
+
+    /**
+     * Drops the lookup table, rebuilt on the next lookup if still enabled
+     */
+    void trim() {
+        this.table = null;
+        this.tableWidth = -1;
+    }
+
+    float valueAt(float x, float barWidth, float min, float max) {
+        if (lookupTableEnabled && scale != Scale.LINEAR && barWidth >= 1) {
+            ensureTable((int) barWidth, min, max);
+
+            final float position = Math.max(0, Math.min(x / barWidth * tableWidth, tableWidth));
+            final int index = (int) position;
+            if (index >= tableWidth) {
+                return table[tableWidth];
+            }
+            final float start = table[index];
+            return start + (table[index + 1] - start) * (position - index);
+        }
+        return scale.toValue(x / barWidth, min, max);
+    }
+
+    float xOf(float value, float barWidth, float min, float max) {
+        return scale.toFraction(value, min, max) * barWidth;
+    }
+
+    /**
+     * Without the lookup table : exact at any zoom
+     */
+    float valueAtFraction(float fraction, float min, float max) {
+        return scale.toValue(fraction, min, max);
+    }
+
+    float fractionOf(float value, float min, float max) {
+        return scale.toFraction(value, min, max);
+    }
+
+    private void ensureTable(int width, float min, float max) {
+        if (table != null && width == tableWidth && min == tableMin && max == tableMax) {
+            return;
+        }
+        if (table == null || table.length != width + 1) {
+            table = new float[width + 1];
+        }
+        for (int i = 0; i <= width; ++i) {
+            table[i] = scale.toValue(i / (float) width, min, max);
+        }
+        tableWidth = width;
+        tableMin = min;
+        tableMax = max;
+    }
+}
@@ -1,6 +1,6 @@
 package com.github.florent37.androidslidr;
 
-import android.animation.ValueAnimator;
+import android.animation.TimeInterpolator;
 import android.app.Activity;
 import android.content.Context;
 import android.content.res.TypedArray;
@@ -15,14 +15,13 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v4.view.GestureDetectorCompat;
 import android.support.v4.view.MotionEventCompat;
+import android.support.v4.view.ViewCompat;
 import android.support.v4.widget.NestedScrollView;
 import android.support.v7.widget.AppCompatEditText;
 import android.support.v7.widget.RecyclerView;
 import android.text.Editable;
 import android.text.InputFilter;
 import android.text.InputType;
-import android.text.Layout;
-import android.text.StaticLayout;
 import android.text.TextPaint;
 import android.text.TextUtils;
 import android.text.TextWatcher;
@@ -30,22 +29,32 @@ import android.util.AttributeSet;
 import android.util.TypedValue;
 import android.view.GestureDetector;
 import android.view.Gravity;
+import android.view.HapticFeedbackConstants;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
 import android.view.View;
+import android.view.VelocityTracker;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 import android.view.ViewTreeObserver;
 import android.view.Window;
 import android.view.WindowManager;
 import android.view.animation.AccelerateInterpolator;
+import android.view.animation.AnimationUtils;
 import android.view.inputmethod.InputMethodManager;
 import android.widget.EditText;
 import android.widget.FrameLayout;
 import android.widget.ScrollView;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import static android.content.Context.WINDOW_SERVICE;
 import static android.view.MotionEvent.ACTION_UP;
@@ -62,31 +71,151 @@ public class Slidr extends FrameLayout {
 
     private static final float BUBBLE_ARROW_HEIGHT = 20;
     private static final float BUBBLE_ARROW_WIDTH = 40;
+    private static final int EDIT_MAX_CHAR_COUNT = 9;
+    private static final TimeInterpolator EDIT_INTERPOLATOR = new AccelerateInterpolator();
+    private static final float LONG_PRESS_ZOOM = 10;
+    //width (dp) of the edges of the bar where the viewport scrolls, and its speed there in bar widths per second
+    private static final int AUTO_PAN_EDGE = 32;
+    private static final float AUTO_PAN_SPEED = 1.5f;
+    //#cccccc, #6E6E6E, #007E90, #ed5564, #e0e0e0 : no parsing per instance
+    private static final int COLOR_BACKGROUND = 0xFFCCCCCC;
+    private static final int COLOR_TEXT = 0xFF6E6E6E;
+    private static final int COLOR_LEFT = 0xFF007E90;
+    static final int COLOR_RIGHT = 0xFFED5564;
+    private static final int COLOR_HISTOGRAM = 0xFFE0E0E0;
     boolean moving = false;
     private Listener listener;
+    private final ValueStream valueStream = new ValueStream();
     private GestureDetectorCompat detector;
     private Settings settings;
-    private float max = 1000;
-    private float min = 0;
-    private float currentValue = 0;
+    final SlidrModel model = new SlidrModel();
     private float oldValue = Float.MIN_VALUE;
     private List<Step> steps = new ArrayList<>();
-    private float barY;
-    private float barWidth;
-    private float indicatorX;
+    private int stepsGeneration = 0;
+    @Nullable
+    private QuantileSketch[] quantileSketches;
+    @Nullable
+    private Step[] quantileSteps;
+    private boolean quantileStepsAdded = false;
+    private boolean quantileStepsUpdateScheduled = false;
+    private final Runnable quantileStepsUpdate = new Runnable() {
+        @Override
+        public void run() {
+            updateQuantileSteps();
+        }
+    };
     private int indicatorRadius;
-    private float barCenterY;
     private Bubble bubble = new Bubble();
+    //bubble outline, built again in place on each draw
+    private final Path bubblePath = new Path();
+    private final Rect bubbleRect = new Rect();
     private TextFormatter textFormatter = new EurosTextFormatter();
     private RegionTextFormatter regionTextFormatter = null;
+    @Nullable
+    private TextLabel[] regionLabels;
+    private final BarPainter barPainter = new BarPainter();
+    //x0, y0, x1, y1 of each visible step line, filled when drawn
+    private float[] stepLines = new float[0];
+    //step values handed to the model, reused between layouts
+    private float[] stepValues = new float[0];
+    //colors of the same steps, blended in gradient mode
+    private int[] stepColors = new int[0];
+    private int lastStepColorAfter;
+    private final StepGradient stepGradient = new StepGradient();
+    //created with the first histogram value
+    @Nullable
+    private Histogram histogram;
+    private float histogramHeight;
+    private final IndicatorAnimator indicatorAnimator = new IndicatorAnimator(new IndicatorAnimator.Target() {
+        @Override
+        public void onAnimatedValue(float value) {
+            applyIndicatorValue(value);
+        }
+    });
+    private final PostedValue postedValue = new PostedValue(new PostedValue.Target() {
+        @Override
+        public void onPostedValue(float value) {
+            if (moving || isEditing || indicatorPhysics.isRunning()) {
+                return;
+            }
+            indicatorAnimator.cancel();
+            applyIndicatorValue(model.clamp(value));
+        }
+    });
+    private final IndicatorPhysics indicatorPhysics = new IndicatorPhysics(new IndicatorPhysics.Target() {
+        @Override
+        public float snapPosition(float x) {
+            return model.snapPosition(x, snapToSteps, snapQuantum);
+        }
+
+        @Override
+        public void onPhysicsPosition(float x) {
+            model.setIndicatorX(x);
+            update();
+        }
 
-    private String textMax = "";
-    private String textMin = "";
-    private int calculatedHieght = 0;
+        @Override
+        public void onPhysicsSettled(boolean snapped) {
+            if (snapped) {
+                applyIndicatorValue(model.getSnapValue());
+            }
+            if (settleListener != null) {
+                settleListener.onValueSettled(Slidr.this, model.getValue());
+            }
+        }
+    });
+    @Nullable
+    private VelocityTracker velocityTracker;
+    //created on the first touch once the zoom is enabled
+    @Nullable
+    private ScaleGestureDetector scaleDetector;
+    private boolean zoomEnabled = false;
+    //pixels per second the viewport scrolls while the finger is at an edge of the bar, < 0 to the left
+    private float autoPanVelocity;
+    private long autoPanFrameTime;
+    private final FrameTicker.Callback autoPan = new FrameTicker.Callback() {
+        @Override
+        public boolean doFrame(long frameTimeMillis) {
+            final float dt = Math.min(0.05f, (frameTimeMillis - autoPanFrameTime) / 1000f);
+            autoPanFrameTime = frameTimeMillis;
+            if (!moving || autoPanVelocity == 0 || !model.panBy(autoPanVelocity * dt)) {
+                autoPanVelocity = 0;
+                return false;
+            }
+            onViewportChanged();
+            return true;
+        }
+    };
+    private boolean flingEnabled = false;
+    private boolean snapToSteps = false;
+    private float snapQuantum = 0;
+    private SettleListener settleListener;
+    @Nullable
+    private PredictionListener predictionListener;
+    //created with the prediction listener
+    private LandingPredictor landingPredictor;
+    private long predictionInterval;
+    private long lastPredictionTime = -1;
+    private String bubbleText;
+    private float bubbleTextValue;
+
+    private TextLabel labelMax = TextLabel.EMPTY;
+    private TextLabel labelMin = TextLabel.EMPTY;
+    private TextLabel labelValueMin;
+    private TextLabel labelValueMax;
+    //values of labelValueMin / labelValueMax, the viewport bounds when zoomed
+    private float labelValueMinOf;
+    private float labelValueMaxOf;
+    //texts of the left and right regions, with their values, when there are no breakpoints
+    private final TextLabel[] sideLabels = new TextLabel[2];
+    private final float[] sideLabelOf = new float[2];
     private boolean isEditing = false;
     private String textEditing = "";
     private EditText editText;
     private TouchView touchView;
+    private TouchView.Callback touchViewCallback;
+    private Runnable showKeyboardRunnable;
+    private ViewTreeObserver.OnPreDrawListener editPreDrawListener;
     private EditListener editListener;
 
     @Nullable
@@ -113,41 +242,49 @@ public class Slidr extends FrameLayout {
     }
 
     private void closeEditText() {
+        closeEditText(true);
+    }
+
+    /**
+     * @param animate false when detached : the typed value is applied at once
+     */
+    private void closeEditText(boolean animate) {
+        if (!isEditing) {
+            return;
+        }
+        removeCallbacks(showKeyboardRunnable);
+        editText.getViewTreeObserver().removeOnPreDrawListener(editPreDrawListener);
         editText.clearFocus();
 
         final InputMethodManager imm = (InputMethodManager) getContext().getSystemService(Context.INPUT_METHOD_SERVICE);
         imm.hideSoftInputFromWindow(editText.getWindowToken(), InputMethodManager.HIDE_NOT_ALWAYS);
 
-        ((ViewGroup) touchView.getParent()).removeView(touchView);
-        removeView(editText);
+        touchView.setCallback(null);
+        if (touchView.getParent() != null) {
+            ((ViewGroup) touchView.getParent()).removeView(touchView);
+        }
+        editText.setVisibility(GONE);
 
         isEditing = false;
         if (TextUtils.isEmpty(textEditing)) {
-            textEditing = String.valueOf(currentValue);
+            textEditing = String.valueOf(model.getValue());
         }
         Float value;
         try {
             value = Float.valueOf(textEditing);
         } catch (Exception e) {
             e.printStackTrace();
-            value = min;
+            value = model.getMin();
         }
 
 
-        value = Math.min(value, max);
-        value = Math.max(value, min);
-        final ValueAnimator valueAnimator = ValueAnimator.ofFloat(currentValue, value);
-        valueAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                setCurrentValue(((float) animation.getAnimatedValue()));
-                postInvalidate();
-            }
-        });
-        valueAnimator.setInterpolator(new AccelerateInterpolator());
-        valueAnimator.start();
-        editText = null;
-        touchView = null;
+        value = model.clamp(value);
+        if (animate) {
+            animateTo(value, IndicatorAnimator.DEFAULT_DURATION, EDIT_INTERPOLATOR);
+        } else {
+            indicatorAnimator.cancel();
+            applyIndicatorValue(value);
+        }
         postInvalidate();
     }
 
@@ -166,91 +303,166 @@ public class Slidr extends FrameLayout {
         return null;
     }
 
+    /**
+     * The EditText has a fixed size (the width of EDIT_MAX_CHAR_COUNT digits) and is only moved with translations,
+     * so typing never triggers a layout pass
+     */
     private void editBubbleEditPosition() {
         if (isEditing) {
-            editText.setX(Math.min(bubble.getX(), getWidth() - editText.getWidth()));
-            editText.setY(bubble.getY());
+            editText.setTranslationX(bubbleCenterX() - editText.getLayoutParams().width / 2f);
+            editText.setTranslationY(bubble.getY());
+        }
+    }
 
-            final ViewGroup.LayoutParams params = editText.getLayoutParams();
-            params.width = (int) bubble.width;
-            params.height = (int) bubble.getHeight();
-            editText.setLayoutParams(params);
+    private float bubbleCenterX() {
+        return bubbleCenterX(bubble.width);
+    }
 
-            editText.animate().alpha(1f);
-        }
+    /**
+     * The bubble follows the indicator, kept inside the view
+     */
+    private float bubbleCenterX(float bubbleWidth) {
+        final float indicatorCenterX = model.getIndicatorX() + settings.paddingCorners;
+        return Math.max(bubbleWidth / 2f, Math.min(indicatorCenterX, getWidth() - bubbleWidth / 2f));
     }
 
-    private void onBubbleClicked() {
-        if (settings.editOnBubbleClick) {
-            isEditing = true;
-            editText = new AppCompatEditText(getContext()) {
-                @Override
-                public boolean onKeyPreIme(int keyCode, KeyEvent event) {
-                    if (event.getKeyCode() == KeyEvent.KEYCODE_BACK) {
-                        dispatchKeyEvent(event);
-                        closeEditText();
-                        return false;
-                    }
-                    return super.onKeyPreIme(keyCode, event);
+    /**
+     * Near an edge the bubble is shifted by its width : both the old and the new bubble are invalidated
+     */
+    private void invalidateBubble(float oldBubbleWidth) {
+        final float oldCenterX = bubbleCenterX(oldBubbleWidth);
+        final float centerX = bubbleCenterX();
+        final float left = Math.min(oldCenterX - oldBubbleWidth / 2f, centerX - bubble.width / 2f);
+        final float right = Math.max(oldCenterX + oldBubbleWidth / 2f, centerX + bubble.width / 2f);
+        invalidate((int) left - 1, 0, (int) right + 1, (int) (bubble.getY() + bubble.height) + 1);
+    }
+
+    /**
+     * The edit overlay (EditText + TouchView) is created on the first bubble click,
+     * then reused for every edit session of this slidr
+     */
+    private void createEditOverlay() {
+        editText = new AppCompatEditText(getContext()) {
+            @Override
+            public boolean onKeyPreIme(int keyCode, KeyEvent event) {
+                if (event.getKeyCode() == KeyEvent.KEYCODE_BACK) {
+                    dispatchKeyEvent(event);
+                    closeEditText();
+                    return false;
                 }
+                return super.onKeyPreIme(keyCode, event);
+            }
 
-            };
+        };
 
-            final int editMaxCharCount =9;
-            editText.setFilters(new InputFilter[] {new InputFilter.LengthFilter(editMaxCharCount)});
+        editText.setFilters(new InputFilter[]{new InputFilter.LengthFilter(EDIT_MAX_CHAR_COUNT)});
 
+        editText.setFocusable(true);
+        editText.setFocusableInTouchMode(true);
+        editText.setSelectAllOnFocus(true);
 
-            editText.setFocusable(true);
-            editText.setFocusableInTouchMode(true);
-            editText.setSelectAllOnFocus(true);
+        editText.setSingleLine(true);
+        editText.setGravity(Gravity.CENTER);
+        //editText.setRawInputType(Configuration.KEYBOARD_12KEY);
+        editText.setInputType(InputType.TYPE_CLASS_NUMBER);
 
-            editText.setSingleLine(true);
-            editText.setGravity(Gravity.CENTER);
-            //editText.setRawInputType(Configuration.KEYBOARD_12KEY);
-            editText.setInputType(InputType.TYPE_CLASS_NUMBER);
+        editText.setBackgroundDrawable(new ColorDrawable(Color.TRANSPARENT));
+        editText.setPadding(0, 0, 0, 0);
+        editText.setTextSize(TypedValue.COMPLEX_UNIT_PX, dpToPx(settings.textSizeBubbleCurrent));
 
-            editText.setTextColor(settings.paintIndicator.getColor());
-            editText.setBackgroundDrawable(new ColorDrawable(Color.TRANSPARENT));
-            editText.setPadding(0, 0, 0, 0);
-            editText.setTextSize(TypedValue.COMPLEX_UNIT_PX, dpToPx(settings.textSizeBubbleCurrent));
+        editText.setOnKeyListener(new View.OnKeyListener() {
+            public boolean onKey(View v, int keyCode, KeyEvent event) {
+                if ((event.getAction() == KeyEvent.ACTION_DOWN) && (keyCode == KeyEvent.KEYCODE_ENTER)) {
+                    closeEditText();
+                    return true;
+                }
+                return false;
+            }
+        });
+
+        editText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+                if (isEditing) {
+                    textEditing = s.toString();
+                    final float oldBubbleWidth = bubble.width;
+                    updateBubbleWidth();
+                    invalidateBubble(oldBubbleWidth);
+                    editBubbleEditPosition();
+                }
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+            }
+        });
+
+        final ViewGroup.LayoutParams params = new ViewGroup.LayoutParams(0, 0);
+        editText.setLayoutParams(params);
+        editText.setVisibility(GONE);
+        addView(editText);
+
+        this.touchView = new TouchView(getContext(), new Rect());
+        this.touchViewCallback = new TouchView.Callback() {
+            @Override
+            public void onClicked() {
+                closeEditText();
+            }
+        };
+        this.editPreDrawListener = new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                editBubbleEditPosition();
+                editText.getViewTreeObserver().removeOnPreDrawListener(this);
+                return false;
+            }
+        };
+        this.showKeyboardRunnable = new Runnable() {
+            @Override
+            public void run() {
+                final InputMethodManager imm = (InputMethodManager) getContext().getSystemService(Context.INPUT_METHOD_SERVICE);
+                imm.showSoftInput(editText, InputMethodManager.SHOW_IMPLICIT);
 
-            textEditing = String.valueOf((int) currentValue);
+                touchView.setCallback(touchViewCallback);
+            }
+        };
+    }
+
+    private void onBubbleClicked() {
+        if (settings.editOnBubbleClick && !isEditing) {
+            if (editText == null) {
+                createEditOverlay();
+            }
+
+            textEditing = String.valueOf((int) model.getValue());
+            isEditing = true;
+
+            editText.setTextColor(settings.paintIndicator.getColor());
             editText.setText(textEditing);
 
-            final ViewGroup.LayoutParams params = new ViewGroup.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
-            params.width = (int) bubble.width;
-            params.height = (int) bubble.getHeight();
-            editText.setLayoutParams(params);
+            final ViewGroup.LayoutParams params = editText.getLayoutParams();
+            final int editWidth = (int) Math.max(bubble.width, settings.paintBubbleTextCurrent.measureText("0") * EDIT_MAX_CHAR_COUNT + BUBBLE_PADDING_HORIZONTAL * 2f);
+            final int editHeight = (int) bubble.getHeight();
+            if (params.width != editWidth || params.height != editHeight) {
+                params.width = editWidth;
+                params.height = editHeight;
+                editText.setLayoutParams(params);
+            }
+            editText.setAlpha(0f);
+            editText.setVisibility(VISIBLE);
+            editText.animate().alpha(1f);
 
-            final Rect rect = new Rect();
-            getGlobalVisibleRect(rect);
-            this.touchView = new TouchView(getContext(), rect);
+            getGlobalVisibleRect(touchView.viewRect);
             getActivityDecorView().addView(touchView);
 
-            editText.postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    final InputMethodManager imm = (InputMethodManager) getContext().getSystemService(Context.INPUT_METHOD_SERVICE);
-                    imm.showSoftInput(editText, InputMethodManager.SHOW_IMPLICIT);
-
-                    touchView.setCallback(new TouchView.Callback() {
-                        @Override
-                        public void onClicked() {
-                            closeEditText();
-                        }
-                    });
-                }
-            }, 300);
+            postDelayed(showKeyboardRunnable, 300);
 
-            addView(editText);
-            editText.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
-                @Override
-                public boolean onPreDraw() {
-                    editBubbleEditPosition();
-                    editText.getViewTreeObserver().removeOnPreDrawListener(this);
-                    return false;
-                }
-            });
+            editText.getViewTreeObserver().addOnPreDrawListener(editPreDrawListener);
 
 
             editText.requestFocus();
@@ -261,35 +473,6 @@ public class Slidr extends FrameLayout {
                 editListener.onEditStarted(editText);
             }
 
-            editText.setOnKeyListener(new View.OnKeyListener() {
-                public boolean onKey(View v, int keyCode, KeyEvent event) {
-                    if ((event.getAction() == KeyEvent.ACTION_DOWN) && (keyCode == KeyEvent.KEYCODE_ENTER)) {
-                        closeEditText();
-                        return true;
-                    }
-                    return false;
-                }
-            });
-
-            editText.addTextChangedListener(new TextWatcher() {
-                @Override
-                public void beforeTextChanged(CharSequence s, int start, int count, int after) {
-
-                }
-
-                @Override
-                public void onTextChanged(CharSequence s, int start, int before, int count) {
-                    textEditing = editText.getText().toString();
-                    updateBubbleWidth();
-                    invalidate();
-                    editBubbleEditPosition();
-                }
-
-                @Override
-                public void afterTextChanged(Editable s) {
-                }
-            });
-
             postInvalidate();
         }
         if (listener != null) {
@@ -311,29 +494,69 @@ public class Slidr extends FrameLayout {
     private void init(Context context, @Nullable AttributeSet attrs) {
         setWillNotDraw(false);
 
-        detector = new GestureDetectorCompat(context, new GestureDetector.SimpleOnGestureListener() {
-            //some callbacks
+        this.settings = new Settings(this);
+        this.settings.init(context, attrs);
+    }
 
-            @Override
-            public boolean onSingleTapConfirmed(MotionEvent e) {
-                onClick(e);
-                return super.onSingleTapConfirmed(e);
-            }
+    /**
+     * Created on the first touch, most slidrs of a screen are never touched
+     */
+    private GestureDetectorCompat gestureDetector() {
+        if (detector == null) {
+            detector = new GestureDetectorCompat(getContext(), new GestureDetector.SimpleOnGestureListener() {
+                //some callbacks
 
-            @Override
-            public boolean onContextClick(MotionEvent e) {
-                return super.onContextClick(e);
-            }
-        });
+                @Override
+                public boolean onSingleTapConfirmed(MotionEvent e) {
+                    onClick(e);
+                    return super.onSingleTapConfirmed(e);
+                }
 
-        this.settings = new Settings(this);
-        this.settings.init(context, attrs);
+                @Override
+                public void onLongPress(MotionEvent e) {
+                    //hold the indicator to zoom around it, hold again to zoom out
+                    if (zoomEnabled && moving) {
+                        if (model.isZoomed()) {
+                            model.resetZoom();
+                        } else {
+                            model.zoom(LONG_PRESS_ZOOM, model.getIndicatorX());
+                        }
+                        performHapticFeedback(HapticFeedbackConstants.LONG_PRESS);
+                        onViewportChanged();
+                    }
+                }
+
+                @Override
+                public boolean onContextClick(MotionEvent e) {
+                    return super.onContextClick(e);
+                }
+            });
+        }
+        return detector;
     }
 
     public void setListener(Listener listener) {
         this.listener = listener;
     }
 
+    /**
+     * Values for any number of subscribers, each one on its own executor, see {@link ValueStream}
+     */
+    public ValueStream getValueStream() {
+        return valueStream;
+    }
+
+    private void dispatchValueChanged() {
+        final float currentValue = model.getValue();
+        if (oldValue != currentValue && (listener != null || valueStream.hasSubscribers())) {
+            oldValue = currentValue;
+            if (listener != null) {
+                listener.valueChanged(Slidr.this, currentValue);
+            }
+            valueStream.publish(currentValue);
+        }
+    }
+
     //region getters
 
     private float dpToPx(int size) {
@@ -345,52 +568,504 @@ public class Slidr extends FrameLayout {
     }
 
     public float getMax() {
-        return max;
+        return model.getMax();
     }
 
     public void setMax(float max) {
-        this.max = max;
+        applyMax(max);
         updateValues();
         update();
     }
 
     public void setMin(float min) {
-        this.min = min;
+        applyMin(min);
         updateValues();
         update();
     }
 
+    /**
+     * Without layout, see setMin() / setSpec()
+     */
+    private void applyMin(float min) {
+        model.setMin(min);
+        this.labelValueMin = null;
+        if (quantileSketches != null) {
+            //step values are relative to the min
+            scheduleQuantileStepsUpdate();
+        }
+    }
+
+    private void applyMax(float max) {
+        model.setMax(max);
+        this.labelValueMax = null;
+    }
+
     public float getCurrentValue() {
-        return currentValue;
+        return model.getValue();
     }
 
     public void setCurrentValue(float value) {
-        this.currentValue = value;
+        indicatorAnimator.cancel();
+        indicatorPhysics.cancel();
+        model.setValue(value);
         updateValues();
         update();
     }
 
+    /**
+     * Animate the indicator to this value, cancels the running animation
+     */
+    public void animateTo(float value, long duration, @Nullable TimeInterpolator interpolator) {
+        indicatorPhysics.cancel();
+        indicatorAnimator.animate(model.getValue(), model.clamp(value), duration, interpolator);
+    }
+
+    public void animateTo(float value) {
+        animateTo(value, IndicatorAnimator.DEFAULT_DURATION, null);
+    }
+
+    /**
+     * Can be called from any thread : only the latest posted value is applied, on the main thread.
+     * setCurrentValue() must be called on the main thread
+     */
+    public void postValue(float value) {
+        postedValue.post(value);
+    }
+
+    public void cancelAnimation() {
+        indicatorAnimator.cancel();
+        indicatorPhysics.cancel();
+    }
+
+    /**
+     * The indicator keeps moving after a fast release, slowed down by friction
+     */
+    public void setFlingEnabled(boolean flingEnabled) {
+        this.flingEnabled = flingEnabled;
+    }
+
+    /**
+     * On release, the indicator springs to the nearest step (or the min / max)
+     */
+    public void setSnapToSteps(boolean snapToSteps) {
+        this.snapToSteps = snapToSteps;
+    }
+
+    /**
+     * On release, the indicator springs to the nearest multiple of quantum from the min, 0 to disable
+     */
+    public void setSnapQuantum(float snapQuantum) {
+        this.snapQuantum = snapQuantum;
+    }
+
+    /**
+     * Called once per release, when the indicator stopped moving (after the fling and the snap)
+     */
+    public void setSettleListener(SettleListener settleListener) {
+        this.settleListener = settleListener;
+    }
+
+    /**
+     * While the indicator is dragged, called at most once per minIntervalMillis with the value where it will probably stop
+     * (snapped like the release would), from the velocity and the deceleration of the finger. Called once more on release.
+     * Useful to start loading the results of a value before the user reaches it
+     */
+    public void setPredictionListener(@Nullable PredictionListener predictionListener, long minIntervalMillis) {
+        this.predictionListener = predictionListener;
+        this.predictionInterval = minIntervalMillis;
+        if (predictionListener != null && landingPredictor == null) {
+            landingPredictor = new LandingPredictor();
+        }
+    }
+
+    /**
+     * Pinch or long press the indicator to show a zoomed part of the range,
+     * holding the indicator at an edge of the bar then scrolls it
+     */
+    public void setZoomEnabled(boolean zoomEnabled) {
+        this.zoomEnabled = zoomEnabled;
+        if (!zoomEnabled && model.isZoomed()) {
+            resetZoom();
+        }
+    }
+
+    public void setMaxZoom(float maxZoom) {
+        model.setMaxZoom(maxZoom);
+    }
+
+    /**
+     * Shows from..to on the bar, the current value is moved inside if needed
+     */
+    public void setViewport(float from, float to) {
+        model.setViewport(from, to);
+        onViewportChanged();
+    }
+
+    public void resetZoom() {
+        model.resetZoom();
+        onViewportChanged();
+    }
+
+    public boolean isZoomed() {
+        return model.isZoomed();
+    }
+
+    public float getViewportMin() {
+        return model.getViewportMin();
+    }
+
+    public float getViewportMax() {
+        return model.getViewportMax();
+    }
+
+    /**
+     * Positions changed, not the layout : nothing to measure again
+     */
+    private void onViewportChanged() {
+        update();
+    }
+
+    private ScaleGestureDetector scaleDetector() {
+        if (scaleDetector == null) {
+            scaleDetector = new ScaleGestureDetector(getContext(), new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+                @Override
+                public boolean onScaleBegin(ScaleGestureDetector detector) {
+                    //a pinch does not move the indicator, nor fling it
+                    moving = false;
+                    stopAutoPan();
+                    if (velocityTracker != null) {
+                        velocityTracker.clear();
+                    }
+                    return true;
+                }
+
+                @Override
+                public boolean onScale(ScaleGestureDetector detector) {
+                    model.zoom(detector.getScaleFactor(), detector.getFocusX() - settings.paddingCorners);
+                    onViewportChanged();
+                    return true;
+                }
+            });
+        }
+        return scaleDetector;
+    }
+
+    /**
+     * Scrolls the viewport while the finger is close to an edge of the bar, faster closer to the edge
+     *
+     * @param x relative to the start of the bar
+     */
+    private void updateAutoPan(float x) {
+        final float barWidth = model.getBarWidth();
+        final float edge = Math.min(dpToPx(AUTO_PAN_EDGE), barWidth / 4f);
+        float depth = 0;
+        if (x < edge) {
+            depth = -Math.min(1f, (edge - x) / edge);
+        } else if (x > barWidth - edge) {
+            depth = Math.min(1f, (x - barWidth + edge) / edge);
+        }
+        autoPanVelocity = depth * barWidth * AUTO_PAN_SPEED;
+        if (autoPanVelocity == 0) {
+            stopAutoPan();
+        } else if (!FrameTicker.getInstance().contains(autoPan)) {
+            autoPanFrameTime = AnimationUtils.currentAnimationTimeMillis();
+            FrameTicker.getInstance().add(autoPan);
+        }
+    }
+
+    private void stopAutoPan() {
+        autoPanVelocity = 0;
+        FrameTicker.getInstance().remove(autoPan);
+    }
+
+    /**
+     * Only moves the indicator and the bubble, the layout (texts, steps) does not depend on the current value
+     */
+    private void applyIndicatorValue(float value) {
+        model.setValue(value);
+        if (model.getBarWidth() > 0f) {
+            dispatchValueChanged();
+
+            updateBubbleWidth();
+            editBubbleEditPosition();
+        }
+        invalidate();
+    }
+
+    public Scale getScale() {
+        return model.getScale();
+    }
+
+    public void setScale(Scale scale) {
+        model.setScale(scale);
+        updateValues();
+        update();
+    }
+
+    /**
+     * Precompute the value of each pixel of the bar, rebuilt only when the width or the range changes.
+     * Useful for expensive scales (log, power)
+     */
+    public void setScaleLookupTable(boolean enabled) {
+        model.setScaleLookupTable(enabled);
+    }
+
+    /**
+     * Region mode with more than 2 regions : the regions are bounded by these fixed breakpoints and by the indicator.
+     * RegionTextFormatter receives the index of the region, from the left, null to go back to 2 regions
+     *
+     * @param colors one per region, from the left : breakpoints.length + 2 colors
+     */
+    public void setRegions(@Nullable float[] breakpoints, @Nullable int[] colors) {
+        model.setRegions(breakpoints, colors);
+        this.regionLabels = model.hasRegions() ? new TextLabel[colors.length] : null;
+        updateValues();
+        update();
+        requestLayout();
+    }
+
+    /**
+     * Bounds of the regions from the indicator, only the labels of the regions whose bounds changed are formatted again
+     */
+    private void updateRegionSegments() {
+        model.updateRegions();
+        if (settings.drawTextOnTop) {
+            final RegionSegments regionSegments = model.getRegions();
+            for (int i = 0; i < regionSegments.getCount(); ++i) {
+                if (regionSegments.isLabelStale(i)) {
+                    regionLabels[i] = new TextLabel(formatRegionValue(i, regionSegments.getLabelValue(i, settings.regions_centerText)));
+                    regionSegments.onLabelFormatted(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Distribution of these values, drawn behind the bar
+     */
+    public void setHistogram(float[] values) {
+        final boolean wasEmpty = isHistogramEmpty();
+        histogram().clear();
+        histogram.add(values, 0, values.length);
+        onHistogramChanged(wasEmpty);
+    }
+
+    /**
+     * Only the buckets of these values are updated
+     */
+    public void addHistogramValues(float[] values, int offset, int length) {
+        final boolean wasEmpty = isHistogramEmpty();
+        histogram().add(values, offset, length);
+        onHistogramChanged(wasEmpty);
+    }
+
+    public void addHistogramValue(float value) {
+        final boolean wasEmpty = isHistogramEmpty();
+        histogram().add(value);
+        onHistogramChanged(wasEmpty);
+    }
+
+    public void clearHistogram() {
+        if (histogram != null) {
+            final boolean wasEmpty = histogram.isEmpty();
+            histogram.clear();
+            onHistogramChanged(wasEmpty);
+        }
+    }
+
+    private Histogram histogram() {
+        if (histogram == null) {
+            histogram = new Histogram();
+        }
+        return histogram;
+    }
+
+    private boolean isHistogramEmpty() {
+        return histogram == null || histogram.isEmpty();
+    }
+
+    private void onHistogramChanged(boolean wasEmpty) {
+        if (wasEmpty != isHistogramEmpty()) {
+            //the histogram takes place above the bar
+            updateValues();
+            requestLayout();
+        }
+        invalidate();
+    }
+
     public void setEditListener(EditListener editListener) {
         this.editListener = editListener;
     }
 
     public void addStep(List<Step> steps) {
         this.steps.addAll(steps);
-        Collections.sort(steps);
+        Collections.sort(this.steps);
+        updateValues();
         update();
+        requestLayout();
     }
 
     //endregion
 
     public void addStep(Step step) {
         this.steps.add(step);
-        Collections.sort(steps);
+        Collections.sort(this.steps);
+        updateValues();
         update();
+        requestLayout();
     }
 
     public void clearSteps() {
         this.steps.clear();
+        this.stepsGeneration++;
+        this.quantileSketches = null;
+        this.quantileSteps = null;
+        update();
+    }
+
+    /**
+     * Steps following the quantiles of the observations added with addQuantileObservation(), named "P50", "P90"...
+     * Replaces the previous quantile steps. The observations are not stored
+     *
+     * @param quantiles between 0 and 1 (excluded), at least one
+     */
+    public void setQuantileSteps(float[] quantiles, int colorBefore, int colorAfter) {
+        if (quantiles.length == 0) {
+            throw new IllegalArgumentException("at least one quantile expected");
+        }
+        if (quantileSteps != null) {
+            for (Step step : quantileSteps) {
+                this.steps.remove(step);
+            }
+        }
+        quantileSketches = new QuantileSketch[quantiles.length];
+        quantileSteps = new Step[quantiles.length];
+        for (int i = 0; i < quantiles.length; ++i) {
+            quantileSketches[i] = new QuantileSketch(quantiles[i]);
+            quantileSteps[i] = new Step(quantileName(quantiles[i]), 0, colorBefore, colorAfter);
+        }
+        quantileStepsAdded = false;
+        updateValues();
+        update();
+    }
+
+    private static String quantileName(float quantile) {
+        final float percent = quantile * 100f;
+        if (percent == Math.rint(percent)) {
+            return "P" + (int) percent;
+        }
+        return "P" + percent;
+    }
+
+    /**
+     * Main thread, the quantile steps move on the next frame. Does not allocate
+     */
+    public void addQuantileObservation(float value) {
+        if (quantileSketches == null) {
+            return;
+        }
+        for (QuantileSketch sketch : quantileSketches) {
+            sketch.add(value);
+        }
+        scheduleQuantileStepsUpdate();
+    }
+
+    public void addQuantileObservations(float[] values, int offset, int length) {
+        if (quantileSketches == null) {
+            return;
+        }
+        for (QuantileSketch sketch : quantileSketches) {
+            for (int i = offset; i < offset + length; ++i) {
+                sketch.add(values[i]);
+            }
+        }
+        scheduleQuantileStepsUpdate();
+    }
+
+    private void scheduleQuantileStepsUpdate() {
+        if (!quantileStepsUpdateScheduled) {
+            quantileStepsUpdateScheduled = true;
+            ViewCompat.postOnAnimation(this, quantileStepsUpdate);
+        }
+    }
+
+    private void updateQuantileSteps() {
+        quantileStepsUpdateScheduled = false;
+        if (quantileSketches == null || quantileSketches[0].getCount() == 0) {
+            return;
+        }
+        for (int i = 0; i < quantileSketches.length; ++i) {
+            final float value = quantileSketches[i].getEstimate() - model.getMin();
+            final Step step = quantileSteps[i];
+            if (step.value != value) {
+                step.value = value;
+                step.valueLabel = null;
+            }
+        }
+        if (!quantileStepsAdded) {
+            quantileStepsAdded = true;
+            Collections.addAll(this.steps, quantileSteps);
+        }
+        Collections.sort(this.steps);
+        updateValues();
+        update();
+    }
+
+    /**
+     * Measures the names and formatted values of these steps on the executor, then adds them on the main thread.
+     * The steps are not drawn until they are ready, the textFormatter is called on the executor thread
+     */
+    public Future<List<Step>> addStepsAsync(final List<Step> steps, Executor executor, @Nullable final StepsListener stepsListener) {
+        final int generation = this.stepsGeneration;
+        final TextFormatter formatter = this.textFormatter;
+        //paints are not thread safe : measure with copies
+        final TextPaint paintTop = new TextPaint(settings.paintTextTop);
+        final TextPaint paintBottom = new TextPaint(settings.paintTextBottom);
+        final List<Step> preparedSteps = new ArrayList<>(steps);
+
+        final FutureTask<List<Step>> task = new FutureTask<>(new Callable<List<Step>>() {
+            @Override
+            public List<Step> call() throws Exception {
+                for (Step step : preparedSteps) {
+                    step.nameLabel.prepare(paintBottom);
+                    final TextLabel valueLabel = new TextLabel(formatter.format(step.value));
+                    valueLabel.prepare(paintTop);
+                    step.valueLabel = valueLabel;
+                }
+                Collections.sort(preparedSteps);
+
+                PostedValue.MAIN_HANDLER.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onStepsPrepared(preparedSteps, generation, formatter, stepsListener);
+                    }
+                });
+                return preparedSteps;
+            }
+        });
+        executor.execute(task);
+        return task;
+    }
+
+    private void onStepsPrepared(List<Step> preparedSteps, int generation, TextFormatter formatter, @Nullable StepsListener stepsListener) {
+        if (generation != stepsGeneration) {
+            //cleared meanwhile
+            return;
+        }
+        if (formatter != textFormatter) {
+            for (Step step : preparedSteps) {
+                step.valueLabel = null;
+            }
+        }
+        this.steps.addAll(preparedSteps);
+        Collections.sort(this.steps);
+        updateValues();
         update();
+        requestLayout();
+
+        if (stepsListener != null) {
+            stepsListener.onStepsAdded(this, preparedSteps);
+        }
     }
 
     @Override
@@ -407,41 +1082,67 @@ public class Slidr extends FrameLayout {
             scrollParent = findScrollParent();
         }
 
-        boolean handledByDetector = this.detector.onTouchEvent(event);
+        boolean handledByDetector = gestureDetector().onTouchEvent(event);
+        if (zoomEnabled) {
+            scaleDetector().onTouchEvent(event);
+            if (scaleDetector.isInProgress()) {
+                return true;
+            }
+        }
         if (!handledByDetector) {
 
             final int action = MotionEventCompat.getActionMasked(event);
+            if (velocityTracker != null) {
+                velocityTracker.addMovement(event);
+            }
             switch (action) {
                 case ACTION_UP:
                 case MotionEvent.ACTION_CANCEL:
                     if (scrollParent != null) {
                         scrollParent.requestDisallowInterceptTouchEvent(false);
                     }
+                    if (action == MotionEvent.ACTION_CANCEL && velocityTracker != null) {
+                        //no fling after a cancel
+                        velocityTracker.clear();
+                    }
+                    stopAutoPan();
                     actionUp();
                     moving = false;
                     break;
                 case MotionEvent.ACTION_DOWN:
+                    indicatorAnimator.cancel();
+                    indicatorPhysics.cancel();
                     if (scrollParent != null) {
                         scrollParent.requestDisallowInterceptTouchEvent(true);
                     }
                     final float evY = event.getY();
-                    if (evY <= barY || evY >= (barY + barWidth)) {
+                    if (evY <= model.getBarY() || evY >= (model.getBarY() + model.getBarWidth())) {
                         return true;
                     } else {
                         moving = true;
+                        if (predictionListener != null) {
+                            landingPredictor.reset();
+                            lastPredictionTime = -1;
+                        }
+                        if (flingEnabled || predictionListener != null) {
+                            if (velocityTracker == null) {
+                                velocityTracker = VelocityTracker.obtain();
+                            }
+                            velocityTracker.clear();
+                            velocityTracker.addMovement(event);
+                        }
                     }
                 case MotionEvent.ACTION_MOVE: {
                     if (moving) {
-                        float evX = event.getX();
-
-                        evX = evX - settings.paddingCorners;
-                        if (evX < 0) {
-                            evX = 0;
+                        //kept on the bar by the model
+                        final float x = event.getX() - settings.paddingCorners;
+                        model.setIndicatorX(x);
+                        if (model.isZoomed()) {
+                            updateAutoPan(x);
                         }
-                        if (evX > barWidth) {
-                            evX = barWidth;
+                        if (predictionListener != null) {
+                            predictLanding(event.getEventTime());
                         }
-                        this.indicatorX = evX;
 
                         update();
                     }
@@ -454,18 +1155,52 @@ public class Slidr extends FrameLayout {
     }
 
     void actionUp() {
+        if (!moving) {
+            return;
+        }
+        float velocity = 0;
+        if (velocityTracker != null) {
+            final ViewConfiguration configuration = ViewConfiguration.get(getContext());
+            velocityTracker.computeCurrentVelocity(1000, configuration.getScaledMaximumFlingVelocity());
+            velocity = flingEnabled ? velocityTracker.getXVelocity() : 0;
+            if (Math.abs(velocity) < configuration.getScaledMinimumFlingVelocity()) {
+                velocity = 0;
+            }
+            velocityTracker.recycle();
+            velocityTracker = null;
+        }
+        if (predictionListener != null) {
+            landingPredictor.onRelease(model.getIndicatorX(), velocity, model.getBarWidth());
+            dispatchPrediction();
+        }
+        //settles at once if there is nothing to fling or snap to
+        indicatorPhysics.start(model.getIndicatorX(), velocity, model.getBarWidth());
+    }
 
+    /**
+     * At most once per prediction interval : the velocity is only computed then
+     */
+    private void predictLanding(long eventTime) {
+        if (velocityTracker == null || (lastPredictionTime >= 0 && eventTime - lastPredictionTime < predictionInterval)) {
+            return;
+        }
+        lastPredictionTime = eventTime;
+        velocityTracker.computeCurrentVelocity(1000);
+        landingPredictor.onMove(eventTime, model.getIndicatorX(), velocityTracker.getXVelocity(), model.getBarWidth());
+        dispatchPrediction();
     }
 
-    public void update() {
-        if (barWidth > 0f) {
-            float currentPercent = indicatorX / barWidth;
-            currentValue = currentPercent * (max - min) + min;
+    private void dispatchPrediction() {
+        final float x = landingPredictor.getPredictedX();
+        //where the release would snap
+        final float snapX = model.snapPosition(x, snapToSteps, snapQuantum);
+        final float value = Float.isNaN(snapX) ? model.valueAt(x) : model.getSnapValue();
+        predictionListener.onValuePredicted(this, value, landingPredictor.getConfidence());
+    }
 
-            if (listener != null && oldValue != currentValue) {
-                oldValue = currentValue;
-                listener.valueChanged(Slidr.this, currentValue);
-            }
+    public void update() {
+        if (model.getBarWidth() > 0f) {
+            dispatchValueChanged();
 
             updateBubbleWidth();
             editBubbleEditPosition();
@@ -473,6 +1208,52 @@ public class Slidr extends FrameLayout {
         postInvalidate();
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        MemoryTrimmer.install(getContext());
+        if (quantileSketches != null) {
+            scheduleQuantileStepsUpdate();
+        }
+    }
+
+    /**
+     * Nothing keeps running or stays attached to the window once detached : the edit overlay is closed,
+     * animations and pending callbacks are cancelled, and the drawing buffers are dropped (rebuilt when drawn again)
+     */
+    @Override
+    protected void onDetachedFromWindow() {
+        closeEditText(false);
+        indicatorAnimator.cancel();
+        indicatorPhysics.cancel();
+        stopAutoPan();
+        moving = false;
+        postedValue.flush();
+        removeCallbacks(quantileStepsUpdate);
+        quantileStepsUpdateScheduled = false;
+        if (velocityTracker != null) {
+            velocityTracker.recycle();
+            velocityTracker = null;
+        }
+        //may change, RecyclerView
+        scrollParent = null;
+        releaseCaches();
+        super.onDetachedFromWindow();
+    }
+
+    /**
+     * Only the drawing buffers : the formatted labels are kept, they may come from addStepsAsync
+     * and a view detached by a RecyclerView is usually attached again with the same values
+     */
+    private void releaseCaches() {
+        model.trim();
+        if (histogram != null) {
+            histogram.trim();
+        }
+        barPainter.trim();
+        stepGradient.trim();
+    }
+
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
@@ -483,7 +1264,121 @@ public class Slidr extends FrameLayout {
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         updateValues();
         super.onMeasure(widthMeasureSpec,
-                MeasureSpec.makeMeasureSpec(calculatedHieght, MeasureSpec.EXACTLY));
+                MeasureSpec.makeMeasureSpec(model.getCalculatedHeight(), MeasureSpec.EXACTLY));
+    }
+
+    /**
+     * Colored segments of the bar from the left, each part once with its visible color
+     */
+    private void paintBarSegments(boolean multiRegions, boolean gradient) {
+        final float radiusCorner = settings.barHeight / 2f;
+        final float barY = model.getBarY();
+        final float barWidth = model.getBarWidth();
+        final float indicatorX = model.getIndicatorX();
+        barPainter.begin(settings.paddingCorners, barY, barY + settings.barHeight);
+
+        if (multiRegions) {
+            final RegionSegments regionSegments = model.getRegions();
+            final int count = regionSegments.getCount();
+            //when zoomed, the caps take the color of the regions at the ends of the viewport
+            int leftColor = regionSegments.getColor(0);
+            int rightColor = regionSegments.getColor(count - 1);
+            for (int i = 0; i < count; ++i) {
+                final float start = Math.max(0, regionSegments.getStartX(i));
+                final float end = Math.min(barWidth, regionSegments.getEndX(i));
+                if (end > start) {
+                    if (start == 0) {
+                        leftColor = regionSegments.getColor(i);
+                    }
+                    if (end == barWidth) {
+                        rightColor = regionSegments.getColor(i);
+                    }
+                    barPainter.segment(start, end, regionSegments.getColor(i));
+                }
+            }
+            barPainter.cap(0, radiusCorner, leftColor, true);
+            barPainter.cap(barWidth, radiusCorner, rightColor, false);
+        } else if (isRegions()) {
+            final int background = steps.isEmpty() ? settings.colorBackground : settings.regionColorRight;
+            barPainter.segment(0, indicatorX, settings.regionColorLeft);
+            barPainter.segment(Math.max(0, indicatorX), barWidth, background);
+            barPainter.cap(0, radiusCorner, settings.regionColorLeft, true);
+            barPainter.cap(barWidth, radiusCorner, background, false);
+        } else if (gradient) {
+            //the gradient itself is drawn over the bar, up to gradientEnd()
+            final float end = gradientEnd();
+            barPainter.segment(end, barWidth, settings.colorBackground);
+            barPainter.cap(0, radiusCorner, end > 0 ? stepGradient.colorAt(model.fractionOf(model.getViewportMin())) : settings.colorBackground, true);
+            barPainter.cap(barWidth, radiusCorner, end >= barWidth ? stepGradient.colorAt(model.fractionOf(model.getViewportMax())) : settings.colorBackground, false);
+        } else {
+            final int background = settings.colorBackground;
+            if (settings.step_colorizeAfterLast) {
+                //from the step just below the current value to the indicator
+                final int below = model.getStepBelowValue();
+                if (below >= 0) {
+                    barPainter.override(Math.max(0, model.getStepX(below)), Math.min(barWidth, indicatorX), steps.get(below).colorAfter);
+                }
+            }
+
+            //only the visible steps, and the first one after the viewport which colors the bar up to its end
+            final int count = steps.size();
+            final int first = model.getFirstVisibleStep();
+            final int end = Math.min(count, model.getVisibleStepEnd() + 1);
+            float lastX = 0;
+            for (int i = first; i < end; ++i) {
+                final Step step = steps.get(i);
+                final float x = Math.max(0, Math.min(barWidth, model.getStepX(i)));
+                final float colorEnd = settings.step_colorizeOnlyBeforeIndicator ? Math.min(x, indicatorX) : x;
+                barPainter.segment(lastX, colorEnd, step.colorBefore);
+                barPainter.segment(Math.max(lastX, colorEnd), x, background);
+                lastX = Math.max(lastX, x);
+            }
+            barPainter.segment(lastX, barWidth, background);
+
+            final int leftColor = first < count ? steps.get(first).colorBefore : background;
+            final int rightColor = end > model.getVisibleStepEnd() && !settings.step_colorizeOnlyBeforeIndicator ? steps.get(end - 1).colorBefore : background;
+            barPainter.cap(0, radiusCorner, leftColor, true);
+            barPainter.cap(barWidth, radiusCorner, rightColor, false);
+        }
+    }
+
+    /**
+     * Builds the gradient of the steps if needed
+     *
+     * @return false if not in gradient mode or without steps
+     */
+    private boolean prepareStepGradient() {
+        final int count = model.getStepCount();
+        if (!settings.step_gradient || count == 0) {
+            return false;
+        }
+        final int endColor = settings.step_colorizeAfterLast ? lastStepColorAfter : stepColors[count - 1];
+        stepGradient.prepare(model, stepColors, endColor, (int) model.getBarWidth());
+        return stepGradient.isReady();
+    }
+
+    /**
+     * End of the gradient on the bar : the last step, or the end of the bar if colorized after the last step,
+     * and not after the indicator if only colorized before it
+     */
+    private float gradientEnd() {
+        final float barWidth = model.getBarWidth();
+        float end = settings.step_colorizeAfterLast ? barWidth : model.getStepX(model.getStepCount() - 1);
+        if (settings.step_colorizeOnlyBeforeIndicator) {
+            end = Math.min(end, model.getIndicatorX());
+        }
+        return Math.max(0, Math.min(barWidth, end));
+    }
+
+    /**
+     * Color of the gradient at the current value, from the lookup table
+     */
+    private int gradientColor() {
+        final float fraction = model.fractionOf(model.getValue());
+        if (!settings.step_colorizeAfterLast && fraction > model.getStepFraction(model.getStepCount() - 1)) {
+            return settings.colorBackground;
+        }
+        return stepGradient.colorAt(fraction);
     }
 
     private void updateBubbleWidth() {
@@ -497,14 +1392,6 @@ public class Slidr extends FrameLayout {
 
     private void updateValues() {
 
-        if (currentValue < min) {
-            currentValue = min;
-        }
-
-        settings.paddingCorners = settings.barHeight;
-
-        barWidth = getWidth() - this.settings.paddingCorners * 2;
-
         if (settings.drawBubble) {
             updateBubbleWidth();
             this.bubble.height = dpToPx(settings.textSizeBubbleCurrent) + BUBBLE_PADDING_VERTICAL * 2f + BUBBLE_ARROW_HEIGHT;
@@ -512,37 +1399,42 @@ public class Slidr extends FrameLayout {
             this.bubble.height = 0;
         }
 
-        this.barY = 0;
+        float top = 0;
         if (settings.drawTextOnTop) {
-            barY += DISTANCE_TEXT_BAR;
+            top += DISTANCE_TEXT_BAR;
             if (isRegions()) {
                 float topTextHeight = 0;
-                final String tmpTextLeft = formatRegionValue(0, 0);
-                final String tmpTextRight = formatRegionValue(1, 0);
-                topTextHeight = Math.max(topTextHeight, calculateTextMultilineHeight(tmpTextLeft, settings.paintTextTop));
-                topTextHeight = Math.max(topTextHeight, calculateTextMultilineHeight(tmpTextRight, settings.paintTextTop));
+                final int regionCount = model.hasRegions() ? model.getRegions().getCount() : 2;
+                for (int i = 0; i < regionCount; ++i) {
+                    topTextHeight = Math.max(topTextHeight, calculateTextMultilineHeight(formatRegionValue(i, 0), settings.paintTextTop));
+                }
 
-                this.barY += topTextHeight + 3;
+                top += topTextHeight + 3;
             } else {
                 float topTextHeight = 0;
 
-                for (Step step : steps) {
+                for (int i = 0; i < steps.size(); ++i) {
                     topTextHeight = Math.max(
                             topTextHeight,
-                            calculateTextMultilineHeight(formatValue(step.value), settings.paintTextBottom)
+                            stepValueLabel(steps.get(i)).getHeight(settings.paintTextBottom)
                     );
                 }
-                this.barY += topTextHeight;
+                top += topTextHeight;
             }
         } else {
             if (settings.drawBubble) {
-                this.barY -= BUBBLE_ARROW_HEIGHT / 1.5f;
+                top -= BUBBLE_ARROW_HEIGHT / 1.5f;
             }
         }
 
-        this.barY += bubble.height;
+        top += bubble.height;
 
-        this.barCenterY = barY + settings.barHeight / 2f;
+        if (isHistogramEmpty()) {
+            this.histogramHeight = 0;
+        } else {
+            this.histogramHeight = dpToPx(settings.histogramHeight);
+            top += histogramHeight;
+        }
 
         if (settings.indicatorInside) {
             this.indicatorRadius = (int) (settings.barHeight * .5f);
@@ -550,39 +1442,51 @@ public class Slidr extends FrameLayout {
             this.indicatorRadius = (int) (settings.barHeight * .9f);
         }
 
-        for (Step step : steps) {
-            final float stoppoverPercent = step.value / (max - min);
-            step.xStart = stoppoverPercent * barWidth;
-        }
-
-        indicatorX = (currentValue - min) / (max - min) * barWidth;
-
-        calculatedHieght = (int) (barCenterY + indicatorRadius);
-
         float bottomTextHeight = 0;
-        if (!TextUtils.isEmpty(textMax)) {
+        if (!labelMax.isEmpty()) {
             bottomTextHeight = Math.max(
-                    calculateTextMultilineHeight(textMax, settings.paintTextBottom),
-                    calculateTextMultilineHeight(textMin, settings.paintTextBottom)
+                    labelMax.getHeight(settings.paintTextBottom),
+                    labelMin.getHeight(settings.paintTextBottom)
             );
         }
-        for (Step step : steps) {
+        for (int i = 0; i < steps.size(); ++i) {
             bottomTextHeight = Math.max(
                     bottomTextHeight,
-                    calculateTextMultilineHeight(step.name, settings.paintTextBottom)
+                    steps.get(i).nameLabel.getHeight(settings.paintTextBottom)
             );
         }
 
-        calculatedHieght += bottomTextHeight;
+        final int stepCount = steps.size();
+        if (stepValues.length < stepCount) {
+            stepValues = new float[stepCount];
+            stepColors = new int[stepCount];
+        }
+        for (int i = 0; i < stepCount; ++i) {
+            stepValues[i] = steps.get(i).value;
+            stepColors[i] = steps.get(i).colorBefore;
+        }
+        if (stepCount > 0) {
+            lastStepColorAfter = steps.get(stepCount - 1).colorAfter;
+        }
+        model.setSteps(stepValues, stepCount);
 
-        calculatedHieght += 10; //padding bottom
+        //10 : padding bottom
+        model.layout(getWidth(), settings.barHeight, top, indicatorRadius + bottomTextHeight + 10);
+        settings.paddingCorners = model.getPaddingCorners();
 
+        if (stepLines.length < stepCount * 4) {
+            stepLines = new float[stepCount * 4];
+        }
+
+        if (histogramHeight > 0) {
+            histogram.layout(model.getScale(), model.getMin(), model.getMax(), (int) (model.getBarWidth() / dpToPx(settings.histogramBucketWidth)));
+        }
     }
 
     private Step findStepBeforeCustor() {
         for (int i = steps.size() - 1; i >= 0; i--) {
             final Step step = steps.get(i);
-            if ((currentValue - min) >= step.value) {
+            if ((model.getValue() - model.getMin()) >= step.value) {
                 return step;
             }
             break;
@@ -593,7 +1497,7 @@ public class Slidr extends FrameLayout {
     private Step findStepOfCustor() {
         for (int i = 0; i < steps.size(); ++i) {
             final Step step = steps.get(i);
-            if ((currentValue - min) <= step.value) {
+            if ((model.getValue() - model.getMin()) <= step.value) {
                 return step;
             }
             break;
@@ -602,12 +1506,12 @@ public class Slidr extends FrameLayout {
     }
 
     public void setTextMax(String textMax) {
-        this.textMax = textMax;
+        this.labelMax = new TextLabel(textMax);
         postInvalidate();
     }
 
     public void setTextMin(String textMin) {
-        this.textMin = textMin;
+        this.labelMin = new TextLabel(textMin);
         postInvalidate();
     }
 
@@ -619,10 +1523,19 @@ public class Slidr extends FrameLayout {
         {
 
             final float paddingLeft = settings.paddingCorners;
-            final float paddingRight = settings.paddingCorners;
-
-
-            if (isRegions()) {
+            final float barY = model.getBarY();
+            final float barWidth = model.getBarWidth();
+            final float barCenterY = model.getBarCenterY();
+            final RegionSegments regionSegments = model.getRegions();
+
+            final boolean multiRegions = isRegions() && regionSegments != null;
+            final boolean gradient = !isRegions() && prepareStepGradient();
+            if (multiRegions) {
+                updateRegionSegments();
+                final int color = regionSegments.getColor(regionSegments.getIndicatorRegion());
+                settings.paintIndicator.setColor(color);
+                settings.paintBubble.setColor(color);
+            } else if (isRegions()) {
                 if (steps.isEmpty()) {
                     settings.paintIndicator.setColor(settings.regionColorLeft);
                     settings.paintBubble.setColor(settings.regionColorLeft);
@@ -630,6 +1543,10 @@ public class Slidr extends FrameLayout {
                     settings.paintIndicator.setColor(settings.regionColorRight);
                     settings.paintBubble.setColor(settings.regionColorRight);
                 }
+            } else if (gradient) {
+                final int color = gradientColor();
+                settings.paintIndicator.setColor(color);
+                settings.paintBubble.setColor(color);
             } else {
                 final Step stepBeforeCustor = findStepOfCustor();
                 if (stepBeforeCustor != null) {
@@ -649,82 +1566,56 @@ public class Slidr extends FrameLayout {
                 }
             }
 
-            final float radiusCorner = settings.barHeight / 2f;
-
-            final float indicatorCenterX = indicatorX + paddingLeft;
-
-            { //background
-                final float centerCircleLeft = paddingLeft;
-                final float centerCircleRight = getWidth() - paddingRight;
-
-                //grey background
-                if (isRegions()) {
-                    if (steps.isEmpty()) {
-                        settings.paintBar.setColor(settings.colorBackground);
-                    } else {
-                        settings.paintBar.setColor(settings.regionColorRight);
-                    }
+            final float indicatorCenterX = model.getIndicatorX() + paddingLeft;
+            //binary searches, the drawing cost only depends on the visible steps
+            final int firstVisibleStep = model.getFirstVisibleStep();
+            final int visibleStepEnd = model.getVisibleStepEnd();
+
+            //histogram
+            if (histogramHeight > 0) {
+                if (model.isZoomed()) {
+                    //the whole range, stretched and clipped to the viewport
+                    final float rangeStart = model.xOf(model.getMin());
+                    canvas.save();
+                    canvas.clipRect(paddingLeft, barY - histogramHeight, paddingLeft + barWidth, barY);
+                    histogram.draw(canvas, paddingLeft + rangeStart, barY, model.xOf(model.getMax()) - rangeStart, histogramHeight, settings.paintHistogram());
+                    canvas.restore();
                 } else {
-                    settings.paintBar.setColor(settings.colorBackground);
+                    histogram.draw(canvas, paddingLeft, barY, barWidth, histogramHeight, settings.paintHistogram());
                 }
-                canvas.drawCircle(centerCircleLeft, barCenterY, radiusCorner, settings.paintBar);
-                canvas.drawCircle(centerCircleRight, barCenterY, radiusCorner, settings.paintBar);
-                canvas.drawRect(centerCircleLeft, barY, centerCircleRight, barY + settings.barHeight, settings.paintBar);
-
-                if (isRegions()) {
-                    settings.paintBar.setColor(settings.regionColorLeft);
-
-                    canvas.drawCircle(centerCircleLeft, barCenterY, radiusCorner, settings.paintBar);
-                    canvas.drawRect(centerCircleLeft, barY, indicatorCenterX, barY + settings.barHeight, settings.paintBar);
-                } else {
-                    float lastX = centerCircleLeft;
-                    boolean first = true;
-                    for (Step step : steps) {
-                        settings.paintBar.setColor(step.colorBefore);
-                        if (first) {
-                            canvas.drawCircle(centerCircleLeft, barCenterY, radiusCorner, settings.paintBar);
-                        }
-
-                        final float x = step.xStart + paddingLeft;
-                        if (!settings.step_colorizeOnlyBeforeIndicator) {
-                            canvas.drawRect(lastX, barY, x, barY + settings.barHeight, settings.paintBar);
-                        } else {
-                            canvas.drawRect(lastX, barY, Math.min(x, indicatorCenterX), barY + settings.barHeight, settings.paintBar);
-                        }
-                        lastX = x;
-
-                        first = false;
-                    }
-
+            }
 
-                    if (settings.step_colorizeAfterLast) {
-                        //find the step just below currentValue
-                        for (int i = steps.size() - 1; i >= 0; i--) {
-                            final Step step = steps.get(i);
-                            if ((currentValue - min) > step.value) {
-                                settings.paintBar.setColor(step.colorAfter);
-                                canvas.drawRect(step.xStart + paddingLeft, barY, indicatorCenterX, barY + settings.barHeight, settings.paintBar);
-                                break;
-                            }
-                        }
-                    }
+            { //background
+                paintBarSegments(multiRegions, gradient);
+                barPainter.draw(canvas, settings.paintBar);
+                if (gradient) {
+                    stepGradient.draw(canvas, paddingLeft, barY, barY + settings.barHeight, 0, gradientEnd(),
+                            model.xOf(model.getMin()), model.xOf(model.getMax()));
                 }
             }
 
 
             { //texts top (values)
                 if (settings.drawTextOnTop) {
-                    final float textY = barY - DISTANCE_TEXT_BAR;
-                    if (isRegions()) {
+                    final float textY = barY - histogramHeight - DISTANCE_TEXT_BAR;
+                    if (multiRegions) {
+                        for (int i = 0; i < regionSegments.getCount(); ++i) {
+                            if (settings.regions_textFollowRegionColor) {
+                                settings.paintTextTop.setColor(regionSegments.getColor(i));
+                            }
+                            final float textX = regionSegments.getLabelX(i, settings.regions_centerText) + paddingLeft;
+                            drawIndicatorsTextAbove(canvas, regionLabels[i], settings.paintTextTop, textX, textY);
+                        }
+                    } else if (isRegions()) {
                         float leftValue;
                         float rightValue;
 
                         if (settings.regions_centerText) {
-                            leftValue = currentValue;
-                            rightValue = max - leftValue;
+                            leftValue = model.getValue();
+                            rightValue = model.getMax() - leftValue;
                         } else {
-                            leftValue = min;
-                            rightValue = max;
+                            leftValue = model.getMin();
+                            rightValue = model.getMax();
                         }
 
                         if (settings.regions_textFollowRegionColor) {
@@ -738,7 +1629,7 @@ public class Slidr extends FrameLayout {
                             textX = paddingLeft;
                         }
 
-                        drawIndicatorsTextAbove(canvas, formatRegionValue(0, leftValue), settings.paintTextTop, textX, textY, Layout.Alignment.ALIGN_CENTER);
+                        drawIndicatorsTextAbove(canvas, sideLabel(0, leftValue), settings.paintTextTop, textX, textY);
 
                         if (settings.regions_textFollowRegionColor) {
                             settings.paintTextTop.setColor(settings.regionColorRight);
@@ -749,13 +1640,17 @@ public class Slidr extends FrameLayout {
                         } else {
                             textX = paddingLeft + barWidth;
                         }
-                        drawIndicatorsTextAbove(canvas, formatRegionValue(1, rightValue), settings.paintTextTop, textX, textY, Layout.Alignment.ALIGN_CENTER);
+                        drawIndicatorsTextAbove(canvas, sideLabel(1, rightValue), settings.paintTextTop, textX, textY);
                     } else {
-                        drawIndicatorsTextAbove(canvas, formatValue(min), settings.paintTextTop, 0 + paddingLeft, textY, Layout.Alignment.ALIGN_CENTER);
-                        for (Step step : steps) {
-                            drawIndicatorsTextAbove(canvas, formatValue(step.value), settings.paintTextTop, step.xStart + paddingLeft, textY, Layout.Alignment.ALIGN_CENTER);
+                        if (labelValueMin == null || labelValueMax == null
+                                || labelValueMinOf != model.getViewportMin() || labelValueMaxOf != model.getViewportMax()) {
+                            updateValueLabels();
                         }
-                        drawIndicatorsTextAbove(canvas, formatValue(max), settings.paintTextTop, canvas.getWidth(), textY, Layout.Alignment.ALIGN_CENTER);
+                        drawIndicatorsTextAbove(canvas, labelValueMin, settings.paintTextTop, 0 + paddingLeft, textY);
+                        for (int i = firstVisibleStep; i < visibleStepEnd; ++i) {
+                            drawIndicatorsTextAbove(canvas, stepValueLabel(steps.get(i)), settings.paintTextTop, model.getStepX(i) + paddingLeft, textY);
+                        }
+                        drawIndicatorsTextAbove(canvas, labelValueMax, settings.paintTextTop, canvas.getWidth(), textY);
                     }
                 }
             }
@@ -764,35 +1659,48 @@ public class Slidr extends FrameLayout {
             { //steps + bottom text
                 final float bottomTextY = barY + settings.barHeight + 15;
 
-                for (Step step : steps) {
-                    if (settings.step_drawLines) {
-                        canvas.drawLine(step.xStart + paddingLeft, barY - settings.barHeight / 4f, step.xStart + paddingLeft, barY + settings.barHeight + settings.barHeight / 4f, settings.paintStep);
+                if (settings.step_drawLines && visibleStepEnd > firstVisibleStep) {
+                    final float lineTop = barY - settings.barHeight / 4f;
+                    final float lineBottom = barY + settings.barHeight + settings.barHeight / 4f;
+                    int line = 0;
+                    for (int i = firstVisibleStep; i < visibleStepEnd; ++i) {
+                        final float lineX = model.getStepX(i) + paddingLeft;
+                        stepLines[line++] = lineX;
+                        stepLines[line++] = lineTop;
+                        stepLines[line++] = lineX;
+                        stepLines[line++] = lineBottom;
                     }
+                    canvas.drawLines(stepLines, 0, line, settings.paintStep());
+                }
 
-                    if (settings.drawTextOnBottom) {
-                        //drawMultilineText(canvas, maxText, canvas.getWidth() - settings.paintText.measureText(maxText), textY, settings.paintText, Layout.Alignment.ALIGN_OPPOSITE);
-                        drawMultilineText(canvas, step.name, step.xStart + paddingLeft, bottomTextY, settings.paintTextBottom, Layout.Alignment.ALIGN_CENTER);
+                if (settings.drawTextOnBottom) {
+                    for (int i = firstVisibleStep; i < visibleStepEnd; ++i) {
+                        steps.get(i).nameLabel.drawMultiline(canvas, model.getStepX(i) + paddingLeft, bottomTextY, settings.paintTextBottom, true, canvas.getWidth(), settings.paddingCorners);
                     }
                 }
 
                 if (settings.drawTextOnBottom) {
-                    if (!TextUtils.isEmpty(textMax)) {
-                        drawMultilineText(canvas, textMax, canvas.getWidth(), bottomTextY, settings.paintTextBottom, Layout.Alignment.ALIGN_CENTER);
+                    if (!labelMax.isEmpty()) {
+                        labelMax.drawMultiline(canvas, canvas.getWidth(), bottomTextY, settings.paintTextBottom, true, canvas.getWidth(), settings.paddingCorners);
                     }
 
-                    if (!TextUtils.isEmpty(textMin)) {
-                        drawMultilineText(canvas, textMin, 0, bottomTextY, settings.paintTextBottom, Layout.Alignment.ALIGN_CENTER);
+                    if (!labelMin.isEmpty()) {
+                        labelMin.drawMultiline(canvas, 0, bottomTextY, settings.paintTextBottom, true, canvas.getWidth(), settings.paddingCorners);
                     }
                 }
             }
 
-            //indicator
+            //indicator : white center, then the colored ring around it
             {
                 final int color = settings.paintIndicator.getColor();
-                canvas.drawCircle(indicatorCenterX, this.barCenterY, indicatorRadius, settings.paintIndicator);
+                final float innerRadius = indicatorRadius * 0.85f;
                 settings.paintIndicator.setColor(Color.WHITE);
-                canvas.drawCircle(indicatorCenterX, this.barCenterY, indicatorRadius * 0.85f, settings.paintIndicator);
+                canvas.drawCircle(indicatorCenterX, barCenterY, innerRadius, settings.paintIndicator);
                 settings.paintIndicator.setColor(color);
+                settings.paintIndicator.setStyle(Paint.Style.STROKE);
+                settings.paintIndicator.setStrokeWidth(indicatorRadius - innerRadius);
+                canvas.drawCircle(indicatorCenterX, barCenterY, (indicatorRadius + innerRadius) / 2f, settings.paintIndicator);
+                settings.paintIndicator.setStyle(Paint.Style.FILL);
             }
 
             //bubble
@@ -832,53 +1740,25 @@ public class Slidr extends FrameLayout {
         }
     }
 
-    private void drawText(Canvas canvas, String text, float x, float y, TextPaint paint, Layout.Alignment aligment) {
-        canvas.save();
-        {
-            canvas.translate(x, y);
-            final StaticLayout staticLayout = new StaticLayout(text, paint, (int) paint.measureText(text), aligment, 1.0f, 0, false);
-            staticLayout.draw(canvas);
+    /**
+     * Text of the left (0) or right (1) region, only formatted again when its value changes
+     */
+    private TextLabel sideLabel(int region, float value) {
+        if (sideLabels[region] == null || sideLabelOf[region] != value) {
+            sideLabels[region] = new TextLabel(formatRegionValue(region, value));
+            sideLabelOf[region] = value;
         }
-        canvas.restore();
+        return sideLabels[region];
     }
 
-    private void drawMultilineText(Canvas canvas, String text, float x, float y, TextPaint paint, Layout.Alignment aligment) {
-        final float lineHeight = paint.getTextSize();
-        float lineY = y;
-        for (CharSequence line : text.split("\n")) {
-            canvas.save();
-            {
-                final float lineWidth = (int) paint.measureText(line.toString());
-                float lineX = x;
-                if (aligment == Layout.Alignment.ALIGN_CENTER) {
-                    lineX -= lineWidth / 2f;
-                }
-                if (lineX < 0) {
-                    lineX = 0;
-                }
-
-                final float right = lineX + lineWidth;
-                if (right > canvas.getWidth()) {
-                    lineX = canvas.getWidth() - lineWidth - settings.paddingCorners;
-                }
-
-                canvas.translate(lineX, lineY);
-                final StaticLayout staticLayout = new StaticLayout(line, paint, (int) lineWidth, aligment, 1.0f, 0, false);
-                staticLayout.draw(canvas);
-
-                lineY += lineHeight;
-            }
-            canvas.restore();
-        }
+    private void drawIndicatorsTextAbove(Canvas canvas, TextLabel label, TextPaint paintText, float x, float y) {
+        y -= label.getHeight(paintText);
 
+        final int width = (int) label.getWidth(paintText);
+        label.draw(canvas, textAboveX(x, width), y, paintText);
     }
 
-    private void drawIndicatorsTextAbove(Canvas canvas, String text, TextPaint paintText, float x, float y, Layout.Alignment alignment) {
-
-        final float textHeight = calculateTextMultilineHeight(text, paintText);
-        y -= textHeight;
-
-        final int width = (int) paintText.measureText(text);
+    private float textAboveX(float x, int width) {
         if (x >= getWidth() - settings.paddingCorners) {
             x = (getWidth() - width - settings.paddingCorners / 2f);
         } else if (x <= 0) {
@@ -895,11 +1775,31 @@ public class Slidr extends FrameLayout {
             x = getWidth() - width;
         }
 
-        drawText(canvas, text, x, y, paintText, alignment);
+        return x;
+    }
+
+    /**
+     * Formatted values of the steps, min and max, only formatted again when the formatter changes
+     */
+    private TextLabel stepValueLabel(Step step) {
+        if (step.valueLabel == null) {
+            step.valueLabel = new TextLabel(formatValue(step.value));
+        }
+        return step.valueLabel;
+    }
+
+    /**
+     * Ends of the bar : the range, or the viewport when zoomed
+     */
+    private void updateValueLabels() {
+        labelValueMinOf = model.getViewportMin();
+        labelValueMaxOf = model.getViewportMax();
+        labelValueMin = new TextLabel(formatValue(model.isZoomed() ? labelValueMinOf : model.getMin()));
+        labelValueMax = new TextLabel(formatValue(model.isZoomed() ? labelValueMaxOf : model.getMax()));
     }
 
     private float calculateTextMultilineHeight(String text, TextPaint textPaint) {
-        return text.split("\n").length * textPaint.getTextSize();
+        return TextLabel.lineCount(text) * textPaint.getTextSize();
     }
 
     /*
@@ -917,8 +1817,17 @@ public class Slidr extends FrameLayout {
     }
     */
 
+    private String bubbleText() {
+        final float currentValue = model.getValue();
+        if (bubbleText == null || bubbleTextValue != currentValue) {
+            bubbleText = formatValue(currentValue);
+            bubbleTextValue = currentValue;
+        }
+        return bubbleText;
+    }
+
     private float calculateBubbleTextWidth() {
-        String bubbleText = formatValue(getCurrentValue());
+        String bubbleText = bubbleText();
         if (isEditing) {
             bubbleText = textEditing;
         }
@@ -926,10 +1835,12 @@ public class Slidr extends FrameLayout {
     }
 
     private void drawBubblePath(Canvas canvas, float triangleCenterX, float height, float width) {
-        final Path path = new Path();
+        final Path path = bubblePath;
+        path.rewind();
 
         int padding = 3;
-        final Rect rect = new Rect(padding, padding, (int) width - padding, (int) (height - BUBBLE_ARROW_HEIGHT) - padding);
+        final Rect rect = bubbleRect;
+        rect.set(padding, padding, (int) width - padding, (int) (height - BUBBLE_ARROW_HEIGHT) - padding);
 
         final float roundRectHeight = (height - BUBBLE_ARROW_HEIGHT) / 2;
 
@@ -979,8 +1890,8 @@ public class Slidr extends FrameLayout {
             }
 
             if (!isEditing) {
-                final String bubbleText = formatValue(getCurrentValue());
-                drawText(canvas, bubbleText, BUBBLE_PADDING_HORIZONTAL, BUBBLE_PADDING_VERTICAL - 3, settings.paintBubbleTextCurrent, Layout.Alignment.ALIGN_NORMAL);
+                final String bubbleText = bubbleText();
+                canvas.drawText(bubbleText, BUBBLE_PADDING_HORIZONTAL, BUBBLE_PADDING_VERTICAL - 3 - settings.paintBubbleTextCurrent.ascent(), settings.paintBubbleTextCurrent);
             }
         }
 
@@ -988,16 +1899,96 @@ public class Slidr extends FrameLayout {
 
     }
 
+    /**
+     * Applies the whole spec with one layout : range, value, steps (replacing the current ones), colors, regions and formatter.
+     * What is not in the spec is kept
+     */
+    public void setSpec(SlidrSpec spec) {
+        indicatorAnimator.cancel();
+        indicatorPhysics.cancel();
+
+        if (!Float.isNaN(spec.min)) {
+            applyMin(spec.min);
+        }
+        if (!Float.isNaN(spec.max)) {
+            applyMax(spec.max);
+        }
+
+        if (spec.hasSteps()) {
+            this.steps.clear();
+            this.stepsGeneration++;
+            this.quantileSketches = null;
+            this.quantileSteps = null;
+            //already sorted
+            for (int i = 0; i < spec.stepValues.length; ++i) {
+                this.steps.add(new Step(spec.stepNames[i], spec.stepValues[i], spec.stepColorsBefore[i], spec.stepColorsAfter[i]));
+            }
+        }
+
+        if (spec.backgroundColor != null) {
+            settings.colorBackground = spec.backgroundColor;
+        }
+        if (spec.regions != null) {
+            settings.modeRegion = spec.regions;
+        }
+        if (spec.regionLeftColor != null) {
+            settings.regionColorLeft = spec.regionLeftColor;
+        }
+        if (spec.regionRightColor != null) {
+            settings.regionColorRight = spec.regionRightColor;
+        }
+        if (spec.breakpoints != null) {
+            model.setRegions(spec.breakpoints, spec.regionColors);
+            this.regionLabels = new TextLabel[spec.regionColors.length];
+        }
+
+        if (spec.formatter != null) {
+            resetTextFormatter(spec.formatter);
+        }
+        if (!Float.isNaN(spec.value)) {
+            model.setValue(model.clamp(spec.value));
+        }
+
+        updateValues();
+        update();
+        requestLayout();
+    }
+
     public void setTextFormatter(TextFormatter textFormatter) {
-        this.textFormatter = textFormatter;
+        resetTextFormatter(textFormatter);
         update();
     }
 
+    /**
+     * Drops every text formatted with the previous formatter
+     */
+    private void resetTextFormatter(TextFormatter textFormatter) {
+        this.textFormatter = textFormatter;
+        this.bubbleText = null;
+        this.labelValueMin = null;
+        this.labelValueMax = null;
+        Arrays.fill(sideLabels, null);
+        for (Step step : steps) {
+            step.valueLabel = null;
+        }
+        if (model.hasRegions()) {
+            model.getRegions().invalidateLabels();
+        }
+    }
+
     public void setRegionTextFormatter(RegionTextFormatter regionTextFormatter) {
         this.regionTextFormatter = regionTextFormatter;
+        Arrays.fill(sideLabels, null);
+        if (model.hasRegions()) {
+            model.getRegions().invalidateLabels();
+        }
         update();
     }
 
+    public Settings getSettings() {
+        return settings;
+    }
+
     public interface EditListener {
         void onEditStarted(EditText editText);
     }
@@ -1012,20 +2003,37 @@ public class Slidr extends FrameLayout {
         String format(float value);
     }
 
+    public interface SettleListener {
+        void onValueSettled(Slidr slidr, float value);
+    }
+
+    public interface PredictionListener {
+        /**
+         * @param confidence between 0 and 1 : 1 once released, lower for a fast or accelerating finger
+         */
+        void onValuePredicted(Slidr slidr, float value, float confidence);
+    }
+
+    public interface StepsListener {
+        void onStepsAdded(Slidr slidr, List<Step> steps);
+    }
+
     public interface RegionTextFormatter {
         String format(int region, float value);
     }
 
     public static class Step implements Comparable<Step> {
         private String name;
+        private TextLabel nameLabel;
+        private TextLabel valueLabel;
         private float value;
 
-        private float xStart;
         private int colorBefore;
-        private int colorAfter = Color.parseColor("#ed5564");
+        private int colorAfter = COLOR_RIGHT;
 
         public Step(String name, float value, int colorBefore) {
             this.name = name;
+            this.nameLabel = new TextLabel(name);
             this.value = value;
             this.colorBefore = colorBefore;
         }
@@ -1050,9 +2058,10 @@ public class Slidr extends FrameLayout {
         private TextPaint paintTextBottom;
         private TextPaint paintBubbleTextCurrent;
         private Paint paintBubble;
-        private int colorBackground = Color.parseColor("#cccccc");
+        private Paint paintHistogram;
+        private int colorBackground = COLOR_BACKGROUND;
         private int colorStoppover = Color.BLACK;
-        private int textColor = Color.parseColor("#6E6E6E");
+        private int textColor = COLOR_TEXT;
         private int textTopSize = 12;
         private int textBottomSize = 12;
         private int textSizeBubbleCurrent = 16;
@@ -1061,6 +2070,7 @@ public class Slidr extends FrameLayout {
         private boolean step_colorizeAfterLast = false;
         private boolean step_drawLines = true;
         private boolean step_colorizeOnlyBeforeIndicator = true;
+        private boolean step_gradient = false;
         private boolean drawTextOnTop = true;
         private boolean drawTextOnBottom = true;
         private boolean drawBubble = true;
@@ -1068,10 +2078,13 @@ public class Slidr extends FrameLayout {
         private boolean indicatorInside = false;
         private boolean regions_textFollowRegionColor = false;
         private boolean regions_centerText = true;
-        private int regionColorLeft = Color.parseColor("#007E90");
-        private int regionColorRight = Color.parseColor("#ed5564");
+        private int regionColorLeft = COLOR_LEFT;
+        private int regionColorRight = COLOR_RIGHT;
         private boolean editOnBubbleClick = true;
         private int bubbleColorEditing = Color.WHITE;
+        private int histogramColor = COLOR_HISTOGRAM;
+        private int histogramHeight = 40;
+        private int histogramBucketWidth = 4;
 
         public Settings(Slidr slidr) {
             this.slidr = slidr;
@@ -1085,11 +2098,6 @@ public class Slidr extends FrameLayout {
             paintBar.setStrokeWidth(2);
             paintBar.setColor(colorBackground);
 
-            paintStep = new Paint();
-            paintStep.setAntiAlias(true);
-            paintStep.setStrokeWidth(5);
-            paintStep.setColor(colorStoppover);
-
             paintTextTop = new TextPaint();
             paintTextTop.setAntiAlias(true);
             paintTextTop.setStyle(Paint.Style.FILL);
@@ -1114,19 +2122,48 @@ public class Slidr extends FrameLayout {
             paintBubble.setStrokeWidth(3);
         }
 
+        /**
+         * Only created if there are steps lines to draw
+         */
+        private Paint paintStep() {
+            if (paintStep == null) {
+                paintStep = new Paint();
+                paintStep.setAntiAlias(true);
+                paintStep.setStrokeWidth(5);
+                paintStep.setColor(colorStoppover);
+            }
+            return paintStep;
+        }
+
+        /**
+         * Only created if there is a histogram to draw
+         */
+        private Paint paintHistogram() {
+            if (paintHistogram == null) {
+                paintHistogram = new Paint();
+                paintHistogram.setStyle(Paint.Style.FILL);
+                paintHistogram.setColor(histogramColor);
+            }
+            return paintHistogram;
+        }
+
         private void init(Context context, AttributeSet attrs) {
             if (attrs != null) {
                 final TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.Slidr);
-                setColorBackground(a.getColor(R.styleable.Slidr_slidr_backgroundColor, colorBackground));
+                //fields only : nothing to update before the first layout
+                this.colorBackground = a.getColor(R.styleable.Slidr_slidr_backgroundColor, colorBackground);
 
                 this.step_colorizeAfterLast = a.getBoolean(R.styleable.Slidr_slidr_step_colorizeAfterLast, step_colorizeAfterLast);
                 this.step_drawLines = a.getBoolean(R.styleable.Slidr_slidr_step_drawLine, step_drawLines);
                 this.step_colorizeOnlyBeforeIndicator = a.getBoolean(R.styleable.Slidr_slidr_step_colorizeOnlyBeforeIndicator, step_colorizeOnlyBeforeIndicator);
+                this.step_gradient = a.getBoolean(R.styleable.Slidr_slidr_step_gradient, step_gradient);
 
                 this.drawTextOnTop = a.getBoolean(R.styleable.Slidr_slidr_textTop_visible, drawTextOnTop);
-                setTextTopSize(a.getDimensionPixelSize(R.styleable.Slidr_slidr_textTop_size, (int) dpToPx(textTopSize)));
+                this.textTopSize = a.getDimensionPixelSize(R.styleable.Slidr_slidr_textTop_size, (int) dpToPx(textTopSize));
+                this.paintTextTop.setTextSize(textTopSize);
                 this.drawTextOnBottom = a.getBoolean(R.styleable.Slidr_slidr_textBottom_visible, drawTextOnBottom);
-                setTextBottomSize(a.getDimensionPixelSize(R.styleable.Slidr_slidr_textBottom_size, (int) dpToPx(textBottomSize)));
+                this.textBottomSize = a.getDimensionPixelSize(R.styleable.Slidr_slidr_textBottom_size, (int) dpToPx(textBottomSize));
+                this.paintTextBottom.setTextSize(textBottomSize);
 
                 this.barHeight = a.getDimensionPixelOffset(R.styleable.Slidr_slidr_barHeight, (int) barHeight);
                 this.drawBubble = a.getBoolean(R.styleable.Slidr_slidr_draw_bubble, drawBubble);
@@ -1150,6 +2187,14 @@ public class Slidr extends FrameLayout {
             slidr.update();
         }
 
+        /**
+         * Blends the colors of the steps along the bar, instead of switching at each step
+         */
+        public void setStep_gradient(boolean step_gradient) {
+            this.step_gradient = step_gradient;
+            slidr.update();
+        }
+
         public void setDrawTextOnTop(boolean drawTextOnTop) {
             this.drawTextOnTop = drawTextOnTop;
             slidr.update();
@@ -1180,6 +2225,33 @@ public class Slidr extends FrameLayout {
             slidr.update();
         }
 
+        public void setHistogramColor(int histogramColor) {
+            this.histogramColor = histogramColor;
+            if (paintHistogram != null) {
+                paintHistogram.setColor(histogramColor);
+            }
+            slidr.invalidate();
+        }
+
+        /**
+         * In dp, height of the highest bucket
+         */
+        public void setHistogramHeight(int histogramHeight) {
+            this.histogramHeight = histogramHeight;
+            slidr.updateValues();
+            slidr.requestLayout();
+            slidr.invalidate();
+        }
+
+        /**
+         * In dp
+         */
+        public void setHistogramBucketWidth(int histogramBucketWidth) {
+            this.histogramBucketWidth = histogramBucketWidth;
+            slidr.updateValues();
+            slidr.invalidate();
+        }
+
         public void setColorBackground(int colorBackground) {
             this.colorBackground = colorBackground;
             slidr.update();
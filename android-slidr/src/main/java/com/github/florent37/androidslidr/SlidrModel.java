@@ -0,0 +1,471 @@
+package com.github.florent37.androidslidr;
+
+/**
+ * State of a slidr without any android dependency : range, current value, scale, steps, regions
+ * and the geometry of the bar. {@link Slidr} and {@link Sushi} only measure their texts, draw and forward the touches,
+ * so this class can be tested and benchmarked on a plain JVM.
+ * Step values are relative to the min, x positions are relative to the start of the bar.
+ * The bar can show a zoomed part of the range, the viewport : positions outside of it are outside of [0, barWidth]
+ */
+public final class SlidrModel {
+
+    private float min = 0;
+    private float max = 1000;
+    private float value = 0;
+    private final ScaleTable scaleTable = new ScaleTable();
+
+    private float[] stepValues = new float[0];
+    //position of each step on the whole range, the viewport does not change them
+    private float[] stepFractions = new float[0];
+    private int stepCount;
+
+    //viewport, as fractions of the whole range
+    private float viewStart = 0f;
+    private float viewSpan = 1f;
+    private float maxZoom = 1000f;
+
+    private RegionSegments regions;
+
+    private float paddingCorners;
+    private float barWidth;
+    private float barHeight;
+    private float barY;
+    private float barCenterY;
+    private float indicatorX;
+    private int calculatedHeight;
+
+    private float snapValue;
+
+    //region range & value
+
+    public float getMin() {
+        return min;
+    }
+
+    public void setMin(float min) {
+        this.min = min;
+    }
+
+    public float getMax() {
+        return max;
+    }
+
+    public void setMax(float max) {
+        this.max = max;
+    }
+
+    public float clamp(float value) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    public float getValue() {
+        return value;
+    }
+
+    /**
+     * Moves the indicator to this value, not clamped. When zoomed, the viewport follows the value
+     */
+    public void setValue(float value) {
+        this.value = value;
+        if (barWidth > 0f) {
+            if (isZoomed()) {
+                final float previous = viewStart;
+                reveal();
+                if (viewStart != previous && regions != null) {
+                    regions.layout(this);
+                }
+            }
+            indicatorX = xOf(value);
+        }
+    }
+
+    public float getIndicatorX() {
+        return indicatorX;
+    }
+
+    /**
+     * Moves the indicator, kept on the bar, the value follows
+     */
+    public void setIndicatorX(float x) {
+        indicatorX = Math.max(0, Math.min(barWidth, x));
+        if (barWidth > 0f) {
+            value = valueAt(indicatorX);
+        }
+    }
+
+    //endregion
+
+    //region scale
+
+    public Scale getScale() {
+        return scaleTable.getScale();
+    }
+
+    public void setScale(Scale scale) {
+        scaleTable.setScale(scale);
+    }
+
+    public void setScaleLookupTable(boolean enabled) {
+        scaleTable.setLookupTableEnabled(enabled);
+    }
+
+    /**
+     * Drops what can be computed again (the scale lookup table)
+     */
+    void trim() {
+        scaleTable.trim();
+    }
+
+    public float valueAt(float x) {
+        if (!isZoomed()) {
+            return scaleTable.valueAt(x, barWidth, min, max);
+        }
+        return scaleTable.valueAtFraction(viewStart + x / barWidth * viewSpan, min, max);
+    }
+
+    public float xOf(float value) {
+        return xOfFraction(scaleTable.fractionOf(value, min, max));
+    }
+
+    /**
+     * Position of this value on the whole range, from 0 (min) to 1 (max), whatever the viewport
+     */
+    public float fractionOf(float value) {
+        return scaleTable.fractionOf(value, min, max);
+    }
+
+    private float xOfFraction(float fraction) {
+        return (fraction - viewStart) / viewSpan * barWidth;
+    }
+
+    //endregion
+
+    //region steps
+
+    /**
+     * @param values relative to the min, sorted
+     */
+    public void setSteps(float[] values, int count) {
+        if (stepValues.length < count) {
+            stepValues = new float[count];
+            stepFractions = new float[count];
+        }
+        System.arraycopy(values, 0, stepValues, 0, count);
+        stepCount = count;
+        updateStepFractions();
+    }
+
+    private void updateStepFractions() {
+        for (int i = 0; i < stepCount; ++i) {
+            stepFractions[i] = scaleTable.fractionOf(min + stepValues[i], min, max);
+        }
+    }
+
+    public int getStepCount() {
+        return stepCount;
+    }
+
+    public float getStepX(int index) {
+        return xOfFraction(stepFractions[index]);
+    }
+
+    /**
+     * Position of the step on the whole range, from 0 to 1
+     */
+    public float getStepFraction(int index) {
+        return stepFractions[index];
+    }
+
+    /**
+     * @return index of the first step inside the viewport, by binary search
+     */
+    public int getFirstVisibleStep() {
+        return firstStepFrom(viewStart, true);
+    }
+
+    /**
+     * @return index after the last step inside the viewport, by binary search
+     */
+    public int getVisibleStepEnd() {
+        return firstStepFrom(viewStart + viewSpan, false);
+    }
+
+    /**
+     * @param inclusive a step at this fraction is counted, else only the next ones
+     * @return index of the first step at (or after) this fraction, stepCount if none
+     */
+    private int firstStepFrom(float fraction, boolean inclusive) {
+        int low = 0;
+        int high = stepCount;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (stepFractions[middle] < fraction || (!inclusive && stepFractions[middle] == fraction)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return index of the last step strictly below the current value, -1 if none
+     */
+    public int getStepBelowValue() {
+        int low = 0;
+        int high = stepCount - 1;
+        int found = -1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (value - min > stepValues[middle]) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Nearest snap position from x : a step (or the ends of the bar), or a multiple of quantum from the min.
+     * Its value is then available with getSnapValue()
+     *
+     * @param quantum 0 to only snap to steps
+     * @return NaN if there is nothing to snap to
+     */
+    public float snapPosition(float x, boolean toSteps, float quantum) {
+        float snapX = Float.NaN;
+        if (toSteps && stepCount > 0) {
+            snapX = xOf(min);
+            snapValue = min;
+            final float maxX = xOf(max);
+            if (maxX - x < x - snapX) {
+                snapX = maxX;
+                snapValue = max;
+            }
+            //the steps around x
+            final int next = firstStepFrom(viewStart + x / barWidth * viewSpan, true);
+            for (int i = Math.max(0, next - 1); i < Math.min(stepCount, next + 1); ++i) {
+                final float stepX = getStepX(i);
+                if (Math.abs(stepX - x) < Math.abs(snapX - x)) {
+                    snapX = stepX;
+                    snapValue = min + stepValues[i];
+                }
+            }
+        }
+        if (quantum > 0f) {
+            final float quantized = clamp(min + Math.round((valueAt(x) - min) / quantum) * quantum);
+            final float quantizedX = xOf(quantized);
+            if (Float.isNaN(snapX) || Math.abs(quantizedX - x) < Math.abs(snapX - x)) {
+                snapX = quantizedX;
+                snapValue = quantized;
+            }
+        }
+        return snapX;
+    }
+
+    public float getSnapValue() {
+        return snapValue;
+    }
+
+    //endregion
+
+    //region regions
+
+    /**
+     * Regions bounded by these breakpoints and by the indicator, null for none
+     */
+    public void setRegions(float[] breakpoints, int[] colors) {
+        if (breakpoints == null || colors == null) {
+            regions = null;
+        } else {
+            regions = new RegionSegments(breakpoints, colors);
+            regions.layout(this);
+        }
+    }
+
+    RegionSegments getRegions() {
+        return regions;
+    }
+
+    public boolean hasRegions() {
+        return regions != null;
+    }
+
+    /**
+     * Bounds of the regions from the current indicator
+     */
+    public void updateRegions() {
+        if (regions != null) {
+            regions.update(this);
+        }
+    }
+
+    //endregion
+
+    //region geometry
+
+    /**
+     * @param width        width of the view
+     * @param barHeight    the rounded ends of the bar take barHeight on each side
+     * @param topHeight    everything above the bar (texts, bubble...)
+     * @param bottomHeight everything below the center of the bar
+     */
+    public void layout(float width, float barHeight, float topHeight, float bottomHeight) {
+        if (value < min) {
+            value = min;
+        }
+        this.barHeight = barHeight;
+        this.paddingCorners = barHeight;
+        this.barWidth = width - paddingCorners * 2;
+        this.barY = topHeight;
+        this.barCenterY = barY + barHeight / 2f;
+        this.calculatedHeight = (int) (barCenterY + bottomHeight);
+
+        updateStepFractions();
+        updatePositions();
+    }
+
+    private void updatePositions() {
+        indicatorX = xOf(value);
+        if (regions != null) {
+            regions.layout(this);
+        }
+    }
+
+    public float getPaddingCorners() {
+        return paddingCorners;
+    }
+
+    public float getBarWidth() {
+        return barWidth;
+    }
+
+    public float getBarHeight() {
+        return barHeight;
+    }
+
+    public float getBarY() {
+        return barY;
+    }
+
+    public float getBarCenterY() {
+        return barCenterY;
+    }
+
+    public int getCalculatedHeight() {
+        return calculatedHeight;
+    }
+
+    //endregion
+
+    //region viewport
+
+    public boolean isZoomed() {
+        return viewSpan < 1f;
+    }
+
+    public float getZoom() {
+        return 1f / viewSpan;
+    }
+
+    public float getMaxZoom() {
+        return maxZoom;
+    }
+
+    public void setMaxZoom(float maxZoom) {
+        this.maxZoom = Math.max(1f, maxZoom);
+    }
+
+    /**
+     * First value shown on the bar
+     */
+    public float getViewportMin() {
+        return scaleTable.valueAtFraction(viewStart, min, max);
+    }
+
+    /**
+     * Last value shown on the bar
+     */
+    public float getViewportMax() {
+        return scaleTable.valueAtFraction(viewStart + viewSpan, min, max);
+    }
+
+    /**
+     * Shows from..to on the bar, within the range and the max zoom. The value is moved inside if needed
+     */
+    public void setViewport(float from, float to) {
+        final float start = scaleTable.fractionOf(clamp(Math.min(from, to)), min, max);
+        final float end = scaleTable.fractionOf(clamp(Math.max(from, to)), min, max);
+        viewSpan = Math.max(1f / maxZoom, Math.min(1f, end - start));
+        viewStart = start;
+        clampViewport();
+        value = Math.max(getViewportMin(), Math.min(getViewportMax(), clamp(value)));
+        updatePositions();
+    }
+
+    public void resetZoom() {
+        viewStart = 0f;
+        viewSpan = 1f;
+        updatePositions();
+    }
+
+    /**
+     * Zooms in (factor > 1) or out around focusX, which keeps its value if the viewport allows it. The value stays visible
+     */
+    public void zoom(float factor, float focusX) {
+        if (barWidth <= 0f || factor <= 0f) {
+            return;
+        }
+        final float focus = focusX / barWidth;
+        final float focusFraction = viewStart + focus * viewSpan;
+        viewSpan = Math.max(1f / maxZoom, Math.min(1f, viewSpan / factor));
+        viewStart = focusFraction - focus * viewSpan;
+        clampViewport();
+        reveal();
+        updatePositions();
+    }
+
+    /**
+     * Scrolls the viewport under the indicator : the indicator keeps its position, the value follows
+     *
+     * @param dx in pixels, > 0 shows greater values
+     * @return false if the viewport is already at this end of the range
+     */
+    public boolean panBy(float dx) {
+        if (!isZoomed() || barWidth <= 0f) {
+            return false;
+        }
+        final float previous = viewStart;
+        viewStart += dx / barWidth * viewSpan;
+        clampViewport();
+        if (viewStart == previous) {
+            return false;
+        }
+        value = valueAt(indicatorX);
+        if (regions != null) {
+            regions.layout(this);
+        }
+        return true;
+    }
+
+    private void clampViewport() {
+        viewStart = Math.max(0f, Math.min(1f - viewSpan, viewStart));
+    }
+
+    /**
+     * Moves the viewport the least to show the value
+     */
+    private void reveal() {
+        final float fraction = scaleTable.fractionOf(clamp(value), min, max);
+        if (fraction < viewStart) {
+            viewStart = fraction;
+        } else if (fraction > viewStart + viewSpan) {
+            viewStart = fraction - viewSpan;
+        }
+        clampViewport();
+    }
+
+    //endregion
+}
@@ -0,0 +1,270 @@
+package com.github.florent37.androidslidr;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Color;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LruCache;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IllegalFormatException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Immutable configuration of a slidr or a sushi compiled from json : range, value, steps (sorted), colors,
+ * region mode and formatter pattern. Can be compiled on any thread. Compiled specs are cached by content
+ * and shared by the views using them, {@link Slidr#setSpec(SlidrSpec)} and {@link Sushi#setSpec(SlidrSpec)}
+ * apply a whole spec with one layout.
+ * Every field is optional, the missing ones are kept by the view :
+ * <pre>
+ * {
+ *   "min": 0, "max": 500, "value": 300,
+ *   "format": "%d EUR",
+ *   "backgroundColor": "#CCCCCC", "foregroundColor": "#007E90",
+ *   "regions": true, "regionLeftColor": "#4CAF50", "regionRightColor": "#ED5564",
+ *   "breakpoints": [100, 200], "regionColors": ["#4CAF50", "#FFC107", "#FF9800", "#ED5564"],
+ *   "steps": [{"name": "test", "value": 250, "colorBefore": "#007E90", "colorAfter": "#FF0000"}]
+ * }
+ * </pre>
+ * format is a String.format() pattern receiving the value as an int, steps replace the steps of a slidr.
+ * breakpoints imply the region mode, "regions": false with breakpoints is rejected.
+ * Sushi only uses the range, the value, the colors and the format
+ */
+public final class SlidrSpec {
+
+    private static final int CACHE_SIZE = 64;
+
+    //keyed by the json : by its hash, then by equality
+    private static final LruCache<String, SlidrSpec> CACHE = new LruCache<>(CACHE_SIZE);
+
+    static {
+        //the registry is main thread only, the first spec may be compiled on any thread
+        PostedValue.MAIN_HANDLER.post(new Runnable() {
+            @Override
+            public void run() {
+                MemoryTrimmer.register(new MemoryTrimmer.Trimmable() {
+                    @Override
+                    public void onTrimMemory(int level) {
+                        if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+                            CACHE.evictAll();
+                        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+                            CACHE.trimToSize(CACHE_SIZE / 2);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    //NaN : not in the spec
+    final float min;
+    final float max;
+    final float value;
+
+    @Nullable
+    final PatternFormatter formatter;
+
+    @Nullable
+    final Integer backgroundColor;
+    @Nullable
+    final Integer foregroundColor;
+    @Nullable
+    final Boolean regions;
+    @Nullable
+    final Integer regionLeftColor;
+    @Nullable
+    final Integer regionRightColor;
+    @Nullable
+    final float[] breakpoints;
+    @Nullable
+    final int[] regionColors;
+
+    //sorted by value, null if the spec has no steps
+    @Nullable
+    final String[] stepNames;
+    @Nullable
+    final float[] stepValues;
+    @Nullable
+    final int[] stepColorsBefore;
+    @Nullable
+    final int[] stepColorsAfter;
+
+    private SlidrSpec(JSONObject json) throws JSONException {
+        this.min = optFloat(json, "min");
+        this.max = optFloat(json, "max");
+        this.value = optFloat(json, "value");
+
+        this.formatter = json.has("format") ? new PatternFormatter(json.getString("format")) : null;
+
+        this.backgroundColor = optColor(json, "backgroundColor");
+        this.foregroundColor = optColor(json, "foregroundColor");
+        final Boolean regions = json.has("regions") ? json.getBoolean("regions") : null;
+        this.regionLeftColor = optColor(json, "regionLeftColor");
+        this.regionRightColor = optColor(json, "regionRightColor");
+
+        if (json.has("breakpoints")) {
+            final JSONArray breakpointsJson = json.getJSONArray("breakpoints");
+            this.breakpoints = new float[breakpointsJson.length()];
+            for (int i = 0; i < breakpoints.length; ++i) {
+                breakpoints[i] = (float) breakpointsJson.getDouble(i);
+            }
+            final JSONArray colorsJson = json.getJSONArray("regionColors");
+            if (colorsJson.length() != breakpoints.length + 2) {
+                throw new JSONException("one region color per region expected : breakpoints.length + 2");
+            }
+            this.regionColors = new int[colorsJson.length()];
+            for (int i = 0; i < regionColors.length; ++i) {
+                regionColors[i] = parseColor(colorsJson.getString(i));
+            }
+            if (Boolean.FALSE.equals(regions)) {
+                throw new JSONException("breakpoints need the region mode : remove \"regions\": false");
+            }
+            //the breakpoints are only drawn in region mode
+            this.regions = Boolean.TRUE;
+        } else {
+            this.breakpoints = null;
+            this.regionColors = null;
+            this.regions = regions;
+        }
+
+        if (json.has("steps")) {
+            final JSONArray stepsJson = json.getJSONArray("steps");
+            final int count = stepsJson.length();
+            final JSONObject[] sorted = new JSONObject[count];
+            for (int i = 0; i < count; ++i) {
+                sorted[i] = stepsJson.getJSONObject(i);
+            }
+            Arrays.sort(sorted, new Comparator<JSONObject>() {
+                @Override
+                public int compare(JSONObject lhs, JSONObject rhs) {
+                    return Double.compare(lhs.optDouble("value"), rhs.optDouble("value"));
+                }
+            });
+            this.stepNames = new String[count];
+            this.stepValues = new float[count];
+            this.stepColorsBefore = new int[count];
+            this.stepColorsAfter = new int[count];
+            for (int i = 0; i < count; ++i) {
+                final JSONObject step = sorted[i];
+                stepNames[i] = step.optString("name", "");
+                stepValues[i] = (float) step.getDouble("value");
+                stepColorsBefore[i] = parseColor(step.getString("colorBefore"));
+                final Integer colorAfter = optColor(step, "colorAfter");
+                stepColorsAfter[i] = colorAfter != null ? colorAfter : Slidr.COLOR_RIGHT;
+            }
+        } else {
+            this.stepNames = null;
+            this.stepValues = null;
+            this.stepColorsBefore = null;
+            this.stepColorsAfter = null;
+        }
+    }
+
+    /**
+     * Compiles this json, or returns the spec already compiled from the same json
+     */
+    public static SlidrSpec compile(String json) throws JSONException {
+        SlidrSpec spec = CACHE.get(json);
+        if (spec == null) {
+            spec = new SlidrSpec(new JSONObject(json));
+            CACHE.put(json, spec);
+        }
+        return spec;
+    }
+
+    /**
+     * Compiles this json on the executor, the listener is called on the main thread.
+     * A spec already in the cache is not compiled again, its listener is only posted
+     */
+    public static Future<SlidrSpec> compileAsync(final String json, Executor executor, @Nullable final Listener listener) {
+        final FutureTask<SlidrSpec> task = new FutureTask<>(new Callable<SlidrSpec>() {
+            @Override
+            public SlidrSpec call() throws Exception {
+                try {
+                    final SlidrSpec spec = compile(json);
+                    if (listener != null) {
+                        PostedValue.MAIN_HANDLER.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                listener.onSpecCompiled(spec);
+                            }
+                        });
+                    }
+                    return spec;
+                } catch (final JSONException e) {
+                    if (listener != null) {
+                        PostedValue.MAIN_HANDLER.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                listener.onSpecFailed(json, e);
+                            }
+                        });
+                    }
+                    throw e;
+                }
+            }
+        });
+        if (CACHE.get(json) != null) {
+            task.run();
+        } else {
+            executor.execute(task);
+        }
+        return task;
+    }
+
+    boolean hasSteps() {
+        return stepValues != null;
+    }
+
+    private static float optFloat(JSONObject json, String name) throws JSONException {
+        return json.has(name) ? (float) json.getDouble(name) : Float.NaN;
+    }
+
+    @Nullable
+    private static Integer optColor(JSONObject json, String name) throws JSONException {
+        return json.has(name) ? parseColor(json.getString(name)) : null;
+    }
+
+    private static int parseColor(String color) throws JSONException {
+        try {
+            return Color.parseColor(color);
+        } catch (IllegalArgumentException e) {
+            throw new JSONException("unknown color : " + color);
+        }
+    }
+
+    public interface Listener {
+        void onSpecCompiled(SlidrSpec spec);
+
+        void onSpecFailed(String json, JSONException e);
+    }
+
+    /**
+     * Formats the value as an int with a String.format() pattern, shared by the views using the spec
+     */
+    static final class PatternFormatter implements Slidr.TextFormatter, Sushi.TextFormatter {
+
+        private final String pattern;
+
+        PatternFormatter(String pattern) throws JSONException {
+            try {
+                String.format(pattern, 0);
+            } catch (IllegalFormatException e) {
+                throw new JSONException("invalid format : " + pattern);
+            }
+            this.pattern = pattern;
+        }
+
+        @Override
+        public String format(float value) {
+            return String.format(pattern, (int) value);
+        }
+    }
+}
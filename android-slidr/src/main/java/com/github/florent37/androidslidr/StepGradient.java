@@ -0,0 +1,143 @@
+package com.github.florent37.androidslidr;
+
+import android.graphics.Canvas;
+import android.graphics.LinearGradient;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Shader;
+
+/**
+ * Colors of the steps blended along the whole range : a gradient shader and a color lookup table,
+ * built again only when the positions or the colors of the steps, the end color or the width change. The shader is defined on [0, 1] and stretched to the range by its local matrix,
+ * so zooming and panning only change the matrix. The lookup table has one color per pixel of the bar when not zoomed
+ */
+final class StepGradient {
+
+    private final Paint paint = new Paint();
+    private final Matrix matrix = new Matrix();
+
+    private LinearGradient shader;
+    private int[] table;
+
+    //what the shader and the table were built from
+    private float[] builtFractions = new float[0];
+    private int[] builtColors = new int[0];
+    private int builtCount;
+    private int builtEndColor;
+
+    StepGradient() {
+        paint.setStyle(Paint.Style.FILL);
+    }
+
+    /**
+     * Builds the shader and the table, only if the steps, the end color or the size changed since the last build.
+     * Does not allocate when nothing changed
+     *
+     * @param stepColors one color per step of the model
+     * @param endColor   color at the max, blended from the last step
+     * @param size       entries of the lookup table
+     */
+    void prepare(SlidrModel model, int[] stepColors, int endColor, int size) {
+        final int count = model.getStepCount();
+        if (count == 0) {
+            shader = null;
+            return;
+        }
+        if (shader != null && !changed(model, stepColors, endColor, size)) {
+            return;
+        }
+
+        final float[] positions = new float[count + 2];
+        final int[] colors = new int[count + 2];
+        positions[0] = 0f;
+        colors[0] = stepColors[0];
+        for (int i = 0; i < count; ++i) {
+            positions[i + 1] = model.getStepFraction(i);
+            colors[i + 1] = stepColors[i];
+        }
+        positions[count + 1] = 1f;
+        colors[count + 1] = endColor;
+        shader = new LinearGradient(0, 0, 1, 0, colors, positions, Shader.TileMode.CLAMP);
+        paint.setShader(shader);
+
+        //same stops as the shader
+        table = new int[Math.max(2, size)];
+        int stop = 1;
+        for (int i = 0; i < table.length; ++i) {
+            final float fraction = i / (table.length - 1f);
+            while (stop < positions.length - 1 && positions[stop] < fraction) {
+                stop++;
+            }
+            final float span = positions[stop] - positions[stop - 1];
+            final float ratio = span > 0f ? (fraction - positions[stop - 1]) / span : 1f;
+            table[i] = blend(colors[stop - 1], colors[stop], Math.max(0f, Math.min(1f, ratio)));
+        }
+
+        if (builtFractions.length < count) {
+            builtFractions = new float[count];
+            builtColors = new int[count];
+        }
+        for (int i = 0; i < count; ++i) {
+            builtFractions[i] = positions[i + 1];
+        }
+        System.arraycopy(stepColors, 0, builtColors, 0, count);
+        builtCount = count;
+        builtEndColor = endColor;
+    }
+
+    private boolean changed(SlidrModel model, int[] stepColors, int endColor, int size) {
+        final int count = model.getStepCount();
+        if (count != builtCount || endColor != builtEndColor || table.length != Math.max(2, size)) {
+            return true;
+        }
+        for (int i = 0; i < count; ++i) {
+            if (model.getStepFraction(i) != builtFractions[i] || stepColors[i] != builtColors[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean isReady() {
+        return shader != null;
+    }
+
+    /**
+     * @param fraction position on the whole range, from 0 to 1
+     */
+    int colorAt(float fraction) {
+        final int index = Math.round(fraction * (table.length - 1));
+        return table[Math.max(0, Math.min(table.length - 1, index))];
+    }
+
+    /**
+     * Draws the gradient between start and end (relative to left), rangeStart and rangeEnd are the positions of the min
+     * and the max, outside of the bar when zoomed
+     */
+    void draw(Canvas canvas, float left, float top, float bottom, float start, float end, float rangeStart, float rangeEnd) {
+        if (end <= start) {
+            return;
+        }
+        matrix.setScale(rangeEnd - rangeStart, 1f);
+        matrix.postTranslate(left + rangeStart, 0f);
+        shader.setLocalMatrix(matrix);
+        canvas.drawRect(left + start, top, left + end, bottom, paint);
+    }
+
+    /**
+     * Drops the shader and the table, built again by the next frame
+     */
+    void trim() {
+        shader = null;
+        table = null;
+        paint.setShader(null);
+    }
+
+    private static int blend(int from, int to, float ratio) {
+        final int a = (int) ((from >>> 24) + (((to >>> 24) - (from >>> 24)) * ratio));
+        final int r = (int) (((from >> 16) & 0xFF) + ((((to >> 16) & 0xFF) - ((from >> 16) & 0xFF)) * ratio));
+        final int g = (int) (((from >> 8) & 0xFF) + ((((to >> 8) & 0xFF) - ((from >> 8) & 0xFF)) * ratio));
+        final int b = (int) ((from & 0xFF) + (((to & 0xFF) - (from & 0xFF)) * ratio));
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+}
@@ -1,18 +1,15 @@
 package com.github.florent37.androidslidr;
 
+import android.animation.TimeInterpolator;
 import android.content.Context;
+import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Path;
-import android.graphics.Rect;
 import android.support.annotation.Nullable;
-import android.text.Layout;
-import android.text.StaticLayout;
 import android.text.TextPaint;
 import android.util.AttributeSet;
-import android.view.MotionEvent;
 import android.widget.FrameLayout;
 
 /**
@@ -21,26 +18,86 @@ import android.widget.FrameLayout;
 
 public class Sushi extends FrameLayout {
 
-    private static final float DISTANCE_TEXT_BAR = 35;
-    private static final float BUBBLE_PADDING_HORIZONTAL = 15;
-    private static final float BUBBLE_PADDING_VERTICAL = 3;
-    private static final float BUBBLE_MIN_WITH = 0;
+    //#cccccc, #6E6E6E, #007E90 : no parsing per instance
+    private static final int COLOR_BACKGROUND = 0xFFCCCCCC;
+    private static final int COLOR_TEXT = 0xFF6E6E6E;
+    private static final int COLOR_FOREGROUND = 0xFF007E90;
 
     private Settings settings;
+    private SushiRenderer renderer;
 
-    private float max = 1000;
-    private float min = 0;
-    private float currentValue = 0;
+    private final Settings.Host settingsHost = new Settings.Host() {
+        @Override
+        public Resources getResources() {
+            return Sushi.this.getResources();
+        }
 
-    private float barY;
-    private float barWidth;
-    private float indicatorX;
-    private float barCenterY;
-    private Bubble bubble = new Bubble();
-    private TextFormatter textFormatter = new EurosTextFormatter();
-    private RegionTextFormatter regionTextFormatter = null;
+        @Override
+        public Object getLock() {
+            //the settings are only used on the UI thread
+            return this;
+        }
 
-    private int calculatedHieght = 0;
+        @Override
+        public void onSettingsChanged(boolean layoutChanged) {
+            if (layoutChanged) {
+                updateValues();
+            }
+            update();
+            if (layoutChanged) {
+                requestLayout();
+            }
+        }
+    };
+    private final IndicatorAnimator indicatorAnimator = new IndicatorAnimator(new IndicatorAnimator.Target() {
+        @Override
+        public void onAnimatedValue(float value) {
+            applyIndicatorValue(value);
+        }
+    });
+    private final PostedValue postedValue = new PostedValue(new PostedValue.Target() {
+        @Override
+        public void onPostedValue(float value) {
+            indicatorAnimator.cancel();
+            applyIndicatorValue(renderer.clamp(value));
+        }
+    });
+
+    private volatile SushiMeter meter;
+    //drains the samples on the next frame of the shared ticker, and keeps ticking while the peak decays
+    private final FrameTicker.Callback meterFrame = new FrameTicker.Callback() {
+        @Override
+        public boolean doFrame(long frameTimeMillis) {
+            final SushiMeter meter = Sushi.this.meter;
+            if (meter == null) {
+                return false;
+            }
+            final float value = meter.drain();
+            if (!Float.isNaN(value)) {
+                final float displayed = renderer.clamp(value);
+                if (displayed != renderer.getCurrentValue()) {
+                    indicatorAnimator.cancel();
+                    applyIndicatorValue(displayed);
+                }
+            }
+            if (meter.isPeakHold()) {
+                if (meter.updatePeak(renderer.getCurrentValue(), frameTimeMillis)) {
+                    invalidate();
+                }
+                if (meter.isPeakAbove(renderer.getCurrentValue())) {
+                    return true;
+                }
+            }
+            meter.onFramesStopped();
+            return false;
+        }
+    };
+    private final Runnable scheduleMeterFrame = new Runnable() {
+        @Override
+        public void run() {
+            FrameTicker.getInstance().add(meterFrame);
+        }
+    };
 
     public Sushi(Context context) {
         this(context, null);
@@ -60,322 +117,227 @@ public class Sushi extends FrameLayout {
         setWillNotDraw(false);
 
         this.settings = new Settings(this);
+        this.renderer = new SushiRenderer(settings, new EurosTextFormatter());
         this.settings.init(context, attrs);
     }
 
     //region getters
 
-    private float dpToPx(int size) {
-        return size * getResources().getDisplayMetrics().density;
-    }
-
-    private float pxToDp(int size) {
-        return size / getResources().getDisplayMetrics().density;
-    }
-
     public float getMax() {
-        return max;
+        return renderer.getMax();
     }
 
     public void setMax(float max) {
-        this.max = max;
+        renderer.setMax(max);
         updateValues();
         update();
     }
 
     public void setMin(float min) {
-        this.min = min;
+        renderer.setMin(min);
         updateValues();
         update();
     }
 
     public float getCurrentValue() {
-        return currentValue;
+        return renderer.getCurrentValue();
     }
 
     public void setCurrentValue(float value) {
-        this.currentValue = value;
+        indicatorAnimator.cancel();
+        renderer.setCurrentValue(value);
         updateValues();
         update();
     }
 
-    //endregion
-
-    public void update() {
-        if (barWidth > 0f) {
-            float currentPercent = indicatorX / barWidth;
-            currentValue = currentPercent * (max - min) + min;
-
-            updateBubbleWidth();
-        }
-        postInvalidate();
+    /**
+     * Animate the indicator to this value, cancels the running animation
+     */
+    public void animateTo(float value, long duration, @Nullable TimeInterpolator interpolator) {
+        indicatorAnimator.animate(renderer.getCurrentValue(), renderer.clamp(value), duration, interpolator);
     }
 
-    @Override
-    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
-        super.onSizeChanged(w, h, oldw, oldh);
-        updateValues();
+    public void animateTo(float value) {
+        animateTo(value, IndicatorAnimator.DEFAULT_DURATION, null);
     }
 
-    @Override
-    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        updateValues();
-        super.onMeasure(widthMeasureSpec,
-                MeasureSpec.makeMeasureSpec(calculatedHieght, MeasureSpec.EXACTLY));
+    /**
+     * Can be called from any thread : only the latest posted value is applied, on the main thread.
+     * setCurrentValue() must be called on the main thread
+     */
+    public void postValue(float value) {
+        postedValue.post(value);
     }
 
-    private void updateBubbleWidth() {
-        this.bubble.width = calculateBubbleTextWidth() + BUBBLE_PADDING_HORIZONTAL * 2f;
-        this.bubble.width = Math.max(BUBBLE_MIN_WITH, this.bubble.width);
-    }
-
-    private void updateValues() {
-
-        if (currentValue < min) {
-            currentValue = min;
+    /**
+     * Meter mode : samples are pushed with pushSample(), and decimated to one displayed value per frame
+     */
+    public void setMeterMode(boolean meterMode) {
+        if (meterMode && meter == null) {
+            meter = new SushiMeter(SushiMeter.DEFAULT_CAPACITY);
+        } else if (!meterMode && meter != null) {
+            meter = null;
+            PostedValue.MAIN_HANDLER.removeCallbacks(scheduleMeterFrame);
+            FrameTicker.getInstance().remove(meterFrame);
+            invalidate();
         }
-
-        settings.paddingCorners = settings.barHeight;
-
-        barWidth = getWidth() - this.settings.paddingCorners * 2;
-
-        updateBubbleWidth();
-        this.bubble.height = dpToPx(settings.textSizeBubble) + BUBBLE_PADDING_VERTICAL * 2f;
-
-        this.barY = 0;
-
-        if(settings.displayMinMax) {
-            barY += DISTANCE_TEXT_BAR;
-            float topTextHeight = 0;
-            final String tmpTextLeft = formatRegionValue(0, 0);
-            final String tmpTextRight = formatRegionValue(1, 0);
-            topTextHeight = Math.max(topTextHeight, calculateTextMultilineHeight(tmpTextLeft, settings.paintTextTop));
-            topTextHeight = Math.max(topTextHeight, calculateTextMultilineHeight(tmpTextRight, settings.paintTextTop));
-
-            this.barY += topTextHeight + 3;
-        } else {
-            barY = 15;
-        }
-
-        this.barCenterY = barY + settings.barHeight / 2f;
-
-        this.bubble.y = barCenterY - bubble.height / 2f;
-
-        indicatorX = (currentValue - min) / (max - min) * barWidth;
-
-        calculatedHieght = (int) (barCenterY + settings.barHeight);
-
-        calculatedHieght += 10; //padding bottom
-
     }
 
-    @Override
-    protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
-
-        canvas.save();
-        {
-
-            final float paddingLeft = settings.paddingCorners;
-            final float paddingRight = settings.paddingCorners;
-
-            final float radiusCorner = settings.barHeight / 2f;
-
-            final float indicatorCenterX = indicatorX + paddingLeft;
-
-            { //background
-                final float centerCircleLeft = paddingLeft;
-                final float centerCircleRight = getWidth() - paddingRight;
-
-                //grey background
-                settings.paintBar.setColor(settings.colorBackground);
-
-                canvas.drawCircle(centerCircleLeft, barCenterY, radiusCorner, settings.paintBar);
-                canvas.drawCircle(centerCircleRight, barCenterY, radiusCorner, settings.paintBar);
-                canvas.drawRect(centerCircleLeft, barY, centerCircleRight, barY + settings.barHeight, settings.paintBar);
-
-
-                //color before indicator
-                settings.paintBar.setColor(settings.foregroundColor);
-
-                canvas.drawCircle(centerCircleLeft, barCenterY, radiusCorner, settings.paintBar);
-                canvas.drawRect(centerCircleLeft, barY, indicatorCenterX, barY + settings.barHeight, settings.paintBar);
-            }
-
-
-            if (settings.displayMinMax) { //texts top (values)
-                final float textY = barY - DISTANCE_TEXT_BAR;
-                drawIndicatorsTextAbove(canvas, formatValue(min), settings.paintTextTop, 0 + paddingLeft, textY, Layout.Alignment.ALIGN_CENTER);
-                drawIndicatorsTextAbove(canvas, formatValue(max), settings.paintTextTop, canvas.getWidth(), textY, Layout.Alignment.ALIGN_CENTER);
-            }
-
-            //bubble
-            {
-
-                float bubbleCenterX = indicatorCenterX;
-                float trangleCenterX;
-
-                bubble.x = bubbleCenterX - bubble.width / 2f;
-
-                if (bubbleCenterX > canvas.getWidth() - bubble.width / 2f) {
-                    bubbleCenterX = canvas.getWidth() - bubble.width / 2f;
-                } else if (bubbleCenterX - bubble.width / 2f < 0) {
-                    bubbleCenterX = bubble.width / 2f;
-                }
-
-                trangleCenterX = (bubbleCenterX + indicatorCenterX) / 2f;
+    public boolean isMeterMode() {
+        return meter != null;
+    }
 
-                drawBubble(canvas, bubbleCenterX, trangleCenterX, bubble.getY());
-            }
+    /**
+     * Meter mode only, can be called from one producer thread at a time. Does not allocate
+     */
+    public void pushSample(float sample) {
+        final SushiMeter meter = this.meter;
+        if (meter != null && meter.push(sample)) {
+            //the ticker is main thread only
+            PostedValue.MAIN_HANDLER.post(scheduleMeterFrame);
         }
-
-        canvas.restore();
     }
 
-    private String formatValue(float value) {
-        return textFormatter.format(value);
+    /**
+     * How the samples received during a frame are reduced to the displayed value
+     */
+    public void setMeterDecimation(Decimation decimation) {
+        setMeterMode(true);
+        meter.setDecimation(decimation);
     }
 
-    private String formatRegionValue(int region, float value) {
-        if (regionTextFormatter != null) {
-            return regionTextFormatter.format(region, value);
-        } else {
-            return formatValue(value);
-        }
+    /**
+     * Displays a marker at the highest recent value, held holdMillis then decreasing of decayPerSecond per second
+     * (decayPerSecond = 0 : the marker jumps back to the value)
+     */
+    public void setPeakHold(boolean peakHold, long holdMillis, float decayPerSecond) {
+        setMeterMode(true);
+        meter.setPeakHold(peakHold, holdMillis, decayPerSecond);
+        invalidate();
     }
 
-    private void drawText(Canvas canvas, String text, float x, float y, TextPaint paint, Layout.Alignment aligment) {
-        canvas.save();
-        {
-            canvas.translate(x, y);
-            final StaticLayout staticLayout = new StaticLayout(text, paint, (int) paint.measureText(text), aligment, 1.0f, 0, false);
-            staticLayout.draw(canvas);
-        }
-        canvas.restore();
-    }
-
-    private void drawMultilineText(Canvas canvas, String text, float x, float y, TextPaint paint, Layout.Alignment aligment) {
-        final float lineHeight = paint.getTextSize();
-        float lineY = y;
-        for (CharSequence line : text.split("\n")) {
-            canvas.save();
-            {
-                final float lineWidth = (int) paint.measureText(line.toString());
-                float lineX = x;
-                if (aligment == Layout.Alignment.ALIGN_CENTER) {
-                    lineX -= lineWidth / 2f;
-                }
-                if (lineX < 0) {
-                    lineX = 0;
-                }
-
-                final float right = lineX + lineWidth;
-                if (right > canvas.getWidth()) {
-                    lineX = canvas.getWidth() - lineWidth - settings.paddingCorners;
-                }
+    public void cancelAnimation() {
+        indicatorAnimator.cancel();
+    }
 
-                canvas.translate(lineX, lineY);
-                final StaticLayout staticLayout = new StaticLayout(line, paint, (int) lineWidth, aligment, 1.0f, 0, false);
-                staticLayout.draw(canvas);
+    /**
+     * Only moves the indicator and the bubble, the layout does not depend on the current value
+     */
+    private void applyIndicatorValue(float value) {
+        renderer.moveIndicator(value);
+        invalidate();
+    }
 
-                lineY += lineHeight;
-            }
-            canvas.restore();
-        }
+    public Scale getScale() {
+        return renderer.getScale();
+    }
 
+    public void setScale(Scale scale) {
+        renderer.setScale(scale);
+        updateValues();
+        update();
     }
 
-    private void drawIndicatorsTextAbove(Canvas canvas, String text, TextPaint paintText, float x, float y, Layout.Alignment alignment) {
+    /**
+     * Precompute the value of each pixel of the bar, rebuilt only when the width or the range changes
+     */
+    public void setScaleLookupTable(boolean enabled) {
+        renderer.setScaleLookupTable(enabled);
+    }
 
-        final float textHeight = calculateTextMultilineHeight(text, paintText);
-        y -= textHeight;
+    //endregion
 
-        final int width = (int) paintText.measureText(text);
-        if (x >= getWidth() - settings.paddingCorners) {
-            x = (getWidth() - width - settings.paddingCorners / 2f);
-        } else if (x <= 0) {
-            x = width / 2f;
-        } else {
-            x = (x - width / 2f);
-        }
+    public void update() {
+        renderer.update();
+        postInvalidate();
+    }
 
-        if (x < 0) {
-            x = 0;
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        MemoryTrimmer.install(getContext());
+        if (meter != null) {
+            //drains what was pushed while detached, and lets the producer schedule frames again
+            FrameTicker.getInstance().add(meterFrame);
         }
+    }
 
-        if (x + width > getWidth()) {
-            x = getWidth() - width;
+    /**
+     * Animations and pending frames are cancelled, the cached texts are dropped
+     */
+    @Override
+    protected void onDetachedFromWindow() {
+        indicatorAnimator.cancel();
+        postedValue.flush();
+        PostedValue.MAIN_HANDLER.removeCallbacks(scheduleMeterFrame);
+        FrameTicker.getInstance().remove(meterFrame);
+        final SushiMeter meter = this.meter;
+        if (meter != null) {
+            meter.onFramesStopped();
         }
-
-        drawText(canvas, text, x, y, paintText, alignment);
+        renderer.trim();
+        super.onDetachedFromWindow();
     }
 
-    private float calculateTextMultilineHeight(String text, TextPaint textPaint) {
-        return text.split("\n").length * textPaint.getTextSize();
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        updateValues();
     }
 
-    private float calculateBubbleTextWidth() {
-        String bubbleText = formatValue(getCurrentValue());
-        return settings.paintTextBubble.measureText(bubbleText);
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        updateValues();
+        super.onMeasure(widthMeasureSpec,
+                MeasureSpec.makeMeasureSpec(renderer.getCalculatedHeight(), MeasureSpec.EXACTLY));
     }
 
-    private void drawBubblePath(Canvas canvas, float triangleCenterX, float height, float width) {
-        final Path path = new Path();
-
-        int padding = 3;
-        final Rect rect = new Rect(padding, padding, (int) width - padding, (int) (height) - padding);
-
-        final float roundRectHeight = (height) / 2;
-
-        path.moveTo(rect.left + roundRectHeight, rect.top);
-        path.lineTo(rect.right - roundRectHeight, rect.top);
-        path.quadTo(rect.right, rect.top, rect.right, rect.top + roundRectHeight);
-        path.lineTo(rect.right, rect.bottom - roundRectHeight);
-        path.quadTo(rect.right, rect.bottom, rect.right - roundRectHeight, rect.bottom);
-
-        path.lineTo(triangleCenterX, height - padding);
-        path.lineTo(triangleCenterX, height - padding);
-        path.lineTo(triangleCenterX, height - padding);
-
-        path.lineTo(rect.left + roundRectHeight, rect.bottom);
-        path.quadTo(rect.left, rect.bottom, rect.left, rect.bottom - roundRectHeight);
-        path.lineTo(rect.left, rect.top + roundRectHeight);
-        path.quadTo(rect.left, rect.top, rect.left + roundRectHeight, rect.top);
-        path.close();
-
-        canvas.drawPath(path, settings.paintBubble);
+    private void updateValues() {
+        renderer.layout(getWidth());
     }
 
-    private void drawBubble(Canvas canvas, float centerX, float triangleCenterX, float y) {
-        final float width = this.bubble.width;
-        final float height = this.bubble.height;
-
-        canvas.save();
-        {
-            canvas.translate(centerX - width / 2f, y);
-            triangleCenterX -= (centerX - width / 2f);
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
 
-            settings.paintBubble.setStyle(Paint.Style.FILL);
-            settings.paintBubble.setColor(settings.foregroundColor);
-            drawBubblePath(canvas, triangleCenterX, height, width);
+        final SushiMeter meter = this.meter;
+        renderer.draw(canvas, meter != null && meter.isPeakHold() ? meter.getPeak() : Float.NaN);
+    }
 
-            settings.paintBubble.setStyle(Paint.Style.FILL);
+    /**
+     * Applies the range, the value, the colors and the formatter of the spec with one layout.
+     * What is not in the spec is kept
+     */
+    public void setSpec(SlidrSpec spec) {
+        indicatorAnimator.cancel();
+        if (!Float.isNaN(spec.min)) {
+            renderer.setMin(spec.min);
         }
-
-        final String bubbleText = formatValue(getCurrentValue());
-        drawText(canvas, bubbleText, BUBBLE_PADDING_HORIZONTAL, bubble.getHeight() / 2f - settings.paintTextBubble.getTextSize() / 2f - BUBBLE_PADDING_VERTICAL, settings.paintTextBubble, Layout.Alignment.ALIGN_NORMAL);
-
-        canvas.restore();
-
+        if (!Float.isNaN(spec.max)) {
+            renderer.setMax(spec.max);
+        }
+        if (spec.foregroundColor != null) {
+            settings.foregroundColor = spec.foregroundColor;
+        }
+        if (spec.backgroundColor != null) {
+            settings.colorBackground = spec.backgroundColor;
+        }
+        if (spec.formatter != null) {
+            renderer.setTextFormatter(spec.formatter);
+        }
+        if (!Float.isNaN(spec.value)) {
+            renderer.setCurrentValue(renderer.clamp(spec.value));
+        }
+        settingsHost.onSettingsChanged(true);
     }
 
     public void setTextFormatter(TextFormatter textFormatter) {
-        this.textFormatter = textFormatter;
+        renderer.setTextFormatter(textFormatter);
         update();
     }
 
     public void setRegionTextFormatter(RegionTextFormatter regionTextFormatter) {
-        this.regionTextFormatter = regionTextFormatter;
+        renderer.setRegionTextFormatter(regionTextFormatter);
         update();
     }
 
@@ -383,6 +345,10 @@ public class Sushi extends FrameLayout {
         return settings;
     }
 
+    public enum Decimation {
+        MAX, MEAN, LAST
+    }
+
     public interface TextFormatter {
         String format(float value);
     }
@@ -392,26 +358,30 @@ public class Sushi extends FrameLayout {
     }
 
     public static class Settings {
-        private Sushi slidr;
-        private Paint paintBar;
-        private TextPaint paintTextTop;
-        private TextPaint paintTextBubble;
-        private Paint paintBubble;
-        private int colorBackground = Color.parseColor("#cccccc");
-        private int textColor = Color.parseColor("#6E6E6E");
+        private final Host host;
+        Paint paintBar;
+        TextPaint paintTextTop;
+        TextPaint paintTextBubble;
+        Paint paintBubble;
+        int colorBackground = COLOR_BACKGROUND;
+        private int textColor = COLOR_TEXT;
 
         private int textSize = 12;
-        private int textSizeBubble = 16;
+        int textSizeBubble = 16;
 
-        private float barHeight = 35;
-        private float paddingCorners;
-        private int foregroundColor = Color.parseColor("#007E90");
+        float barHeight = 35;
+        float paddingCorners;
+        int foregroundColor = COLOR_FOREGROUND;
 
 
-        private boolean displayMinMax = true;
+        boolean displayMinMax = true;
 
         public Settings(Sushi slidr) {
-            this.slidr = slidr;
+            this(slidr.settingsHost);
+        }
+
+        Settings(Host host) {
+            this.host = host;
 
             paintBar = new Paint();
             paintBar.setAntiAlias(true);
@@ -436,10 +406,11 @@ public class Sushi extends FrameLayout {
             paintBubble.setStrokeWidth(3);
         }
 
-        private void init(Context context, AttributeSet attrs) {
+        void init(Context context, AttributeSet attrs) {
             if (attrs != null) {
                 final TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.Sushi);
-                setColorBackground(a.getColor(R.styleable.Sushi_sushi_backgroundColor, colorBackground));
+                //fields only : nothing to update before the first layout
+                this.colorBackground = a.getColor(R.styleable.Sushi_sushi_backgroundColor, colorBackground);
 
                 this.barHeight = a.getDimensionPixelOffset(R.styleable.Sushi_sushi_barHeight, (int) barHeight);
                 this.foregroundColor = a.getColor(R.styleable.Sushi_sushi_foregroundColor, foregroundColor);
@@ -457,72 +428,69 @@ public class Sushi extends FrameLayout {
         }
 
         public void setBarHeight(int barHeight) {
-            this.barHeight = barHeight;
-            slidr.updateValues();
-            slidr.update();
+            synchronized (host.getLock()) {
+                this.barHeight = barHeight;
+            }
+            host.onSettingsChanged(true);
         }
 
         public void setForegroundColor(int foregroundColor) {
-            this.foregroundColor = foregroundColor;
-            slidr.update();
+            synchronized (host.getLock()) {
+                this.foregroundColor = foregroundColor;
+            }
+            host.onSettingsChanged(false);
         }
 
         public void setColorBackground(int colorBackground) {
-            this.colorBackground = colorBackground;
-            slidr.update();
+            synchronized (host.getLock()) {
+                this.colorBackground = colorBackground;
+            }
+            host.onSettingsChanged(false);
         }
 
         public void setTextSize(int textSize) {
-            this.textSize = textSize;
-            this.paintTextTop.setTextSize(textSize);
-            slidr.updateValues();
-            slidr.update();
+            synchronized (host.getLock()) {
+                this.textSize = textSize;
+                this.paintTextTop.setTextSize(textSize);
+            }
+            host.onSettingsChanged(true);
         }
 
         public void setBubbleTextSize(int textSizeBubble) {
-            this.textSizeBubble = textSizeBubble;
-            this.paintTextBubble.setTextSize(textSizeBubble);
-            slidr.updateValues();
-            slidr.update();
+            synchronized (host.getLock()) {
+                this.textSizeBubble = textSizeBubble;
+                this.paintTextBubble.setTextSize(textSizeBubble);
+            }
+            host.onSettingsChanged(true);
         }
 
-        private float dpToPx(int size) {
-            return size * slidr.getResources().getDisplayMetrics().density;
+        float dpToPx(int size) {
+            return size * host.getResources().getDisplayMetrics().density;
         }
 
         public void setDisplayMinMax(boolean displayMinMax) {
-            this.displayMinMax = displayMinMax;
-            slidr.updateValues();
-            slidr.update();
-            slidr.requestLayout();
-        }
-    }
-
-    private class Bubble {
-        private float height;
-        private float width;
-        private float x;
-        private float y;
-
-        public boolean clicked(MotionEvent e) {
-            return e.getX() >= x && e.getX() <= x + width
-                    && e.getY() >= y && e.getY() < y + height;
+            synchronized (host.getLock()) {
+                this.displayMinMax = displayMinMax;
+            }
+            host.onSettingsChanged(true);
         }
 
-        public float getHeight() {
-            return height;
-        }
+        /**
+         * The view drawing with these settings
+         */
+        interface Host {
+            Resources getResources();
 
-        public float getX() {
-            return Math.max(x, 0);
-        }
+            /**
+             * Held while the settings and their paints change : the host may draw them on another thread
+             */
+            Object getLock();
 
-        public float getY() {
-            return Math.max(y, 0);
+            void onSettingsChanged(boolean layoutChanged);
         }
     }
 
-    public class EurosTextFormatter implements TextFormatter {
+    public static class EurosTextFormatter implements TextFormatter {
 
         @Override
         public String format(float value) {
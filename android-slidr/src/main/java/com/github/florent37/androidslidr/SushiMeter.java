@@ -0,0 +1,127 @@
+package com.github.florent37.androidslidr;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Live meter state of a {@link Sushi} : samples pushed from a producer thread are decimated
+ * to one value per frame on the main thread, with an optional peak-hold marker
+ */
+final class SushiMeter {
+
+    static final int DEFAULT_CAPACITY = 1024;
+
+    private final SampleRingBuffer samples;
+    private final float[] frameSamples;
+    private final AtomicBoolean frameScheduled = new AtomicBoolean(false);
+
+    private Sushi.Decimation decimation = Sushi.Decimation.MAX;
+
+    private boolean peakHold = false;
+    private long peakHoldMillis;
+    private float peakDecayPerSecond;
+    private float peak = Float.NaN;
+    private long peakTime;
+    private long lastFrameTime;
+
+    SushiMeter(int capacity) {
+        this.samples = new SampleRingBuffer(capacity);
+        this.frameSamples = new float[samples.capacity()];
+    }
+
+    /**
+     * Producer thread
+     *
+     * @return true if a frame has to be scheduled
+     */
+    boolean push(float sample) {
+        samples.write(sample);
+        return frameScheduled.compareAndSet(false, true);
+    }
+
+    /**
+     * Main thread
+     *
+     * @return the decimated value of the samples pushed since the last frame, NaN if none
+     */
+    float drain() {
+        frameScheduled.set(false);
+        final int count = samples.read(frameSamples);
+        if (count == 0) {
+            return Float.NaN;
+        }
+        switch (decimation) {
+            case LAST:
+                return frameSamples[count - 1];
+            case MEAN: {
+                double sum = 0;
+                for (int i = 0; i < count; ++i) {
+                    sum += frameSamples[i];
+                }
+                return (float) (sum / count);
+            }
+            case MAX:
+            default: {
+                float max = frameSamples[0];
+                for (int i = 1; i < count; ++i) {
+                    max = Math.max(max, frameSamples[i]);
+                }
+                return max;
+            }
+        }
+    }
+
+    /**
+     * @return true if the peak marker moved
+     */
+    boolean updatePeak(float value, long now) {
+        final float oldPeak = peak;
+        final long elapsed = lastFrameTime == 0 ? 0 : now - lastFrameTime;
+        lastFrameTime = now;
+
+        if (Float.isNaN(peak) || value >= peak) {
+            peak = value;
+            peakTime = now;
+        } else if (now - peakTime > peakHoldMillis) {
+            if (peakDecayPerSecond > 0) {
+                peak = Math.max(value, peak - peakDecayPerSecond * elapsed / 1000f);
+            } else {
+                peak = value;
+            }
+        }
+        return Float.compare(peak, oldPeak) != 0;
+    }
+
+    /**
+     * No frame until the next sample : the first frame after this pause does not count the idle time in the decay
+     */
+    void onFramesStopped() {
+        lastFrameTime = 0;
+    }
+
+    /**
+     * @return true while the marker is held or decaying above the value, it needs more frames
+     */
+    boolean isPeakAbove(float value) {
+        return peakHold && peak > value;
+    }
+
+    float getPeak() {
+        return peak;
+    }
+
+    boolean isPeakHold() {
+        return peakHold;
+    }
+
+    void setPeakHold(boolean peakHold, long holdMillis, float decayPerSecond) {
+        this.peakHold = peakHold;
+        this.peakHoldMillis = holdMillis;
+        this.peakDecayPerSecond = decayPerSecond;
+        this.peak = Float.NaN;
+        this.lastFrameTime = 0;
+    }
+
+    void setDecimation(Sushi.Decimation decimation) {
+        this.decimation = decimation;
+    }
+}
@@ -0,0 +1,339 @@
+package com.github.florent37.androidslidr;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.text.TextPaint;
+
+/**
+ * Values, geometry and drawing of a sushi bar, independent of the view hosting it :
+ * used by {@link Sushi} on the UI thread and by {@link SushiTextureView} on its render thread
+ */
+final class SushiRenderer {
+
+    private static final float DISTANCE_TEXT_BAR = 35;
+    private static final float BUBBLE_PADDING_HORIZONTAL = 15;
+    private static final float BUBBLE_PADDING_VERTICAL = 3;
+    private static final float BUBBLE_MIN_WITH = 0;
+    private static final float PEAK_MARKER_WIDTH = 4;
+
+    private final Sushi.Settings settings;
+
+    private final SlidrModel model = new SlidrModel();
+
+    private int width;
+    private float bubbleWidth;
+    private float bubbleHeight;
+    private float bubbleY;
+    private Sushi.TextFormatter textFormatter;
+    private Sushi.RegionTextFormatter regionTextFormatter = null;
+    private String bubbleText;
+    private float bubbleTextValue;
+    private TextLabel labelValueMin;
+    private TextLabel labelValueMax;
+    //bubble outline, built again in place on each draw
+    private final Path bubblePath = new Path();
+    private final Rect bubbleRect = new Rect();
+
+    SushiRenderer(Sushi.Settings settings, Sushi.TextFormatter textFormatter) {
+        this.settings = settings;
+        this.textFormatter = textFormatter;
+    }
+
+    float getMax() {
+        return model.getMax();
+    }
+
+    void setMax(float max) {
+        model.setMax(max);
+        this.labelValueMax = null;
+    }
+
+    float getMin() {
+        return model.getMin();
+    }
+
+    void setMin(float min) {
+        model.setMin(min);
+        this.labelValueMin = null;
+    }
+
+    float getCurrentValue() {
+        return model.getValue();
+    }
+
+    void setCurrentValue(float currentValue) {
+        model.setValue(currentValue);
+    }
+
+    float clamp(float value) {
+        return model.clamp(value);
+    }
+
+    Scale getScale() {
+        return model.getScale();
+    }
+
+    void setScale(Scale scale) {
+        model.setScale(scale);
+    }
+
+    void setScaleLookupTable(boolean enabled) {
+        model.setScaleLookupTable(enabled);
+    }
+
+    void setTextFormatter(Sushi.TextFormatter textFormatter) {
+        this.textFormatter = textFormatter;
+        this.bubbleText = null;
+        this.labelValueMin = null;
+        this.labelValueMax = null;
+    }
+
+    void setRegionTextFormatter(Sushi.RegionTextFormatter regionTextFormatter) {
+        this.regionTextFormatter = regionTextFormatter;
+    }
+
+    /**
+     * Drops the cached texts and the scale lookup table, computed again when needed
+     */
+    void trim() {
+        model.trim();
+        this.bubbleText = null;
+        this.labelValueMin = null;
+        this.labelValueMax = null;
+    }
+
+    int getCalculatedHeight() {
+        return model.getCalculatedHeight();
+    }
+
+    /**
+     * Bubble of the current value, the model keeps the indicator and the value in sync
+     */
+    void update() {
+        if (model.getBarWidth() > 0f) {
+            updateBubbleWidth();
+        }
+    }
+
+    /**
+     * Only moves the indicator and the bubble, the layout does not depend on the current value
+     */
+    void moveIndicator(float value) {
+        model.setValue(value);
+        if (model.getBarWidth() > 0f) {
+            updateBubbleWidth();
+        }
+    }
+
+    void layout(int width) {
+        this.width = width;
+
+        updateBubbleWidth();
+        this.bubbleHeight = settings.dpToPx(settings.textSizeBubble) + BUBBLE_PADDING_VERTICAL * 2f;
+
+        float top = 0;
+
+        if (settings.displayMinMax) {
+            top += DISTANCE_TEXT_BAR;
+            float topTextHeight = 0;
+            final String tmpTextLeft = formatRegionValue(0, 0);
+            final String tmpTextRight = formatRegionValue(1, 0);
+            topTextHeight = Math.max(topTextHeight, calculateTextMultilineHeight(tmpTextLeft, settings.paintTextTop));
+            topTextHeight = Math.max(topTextHeight, calculateTextMultilineHeight(tmpTextRight, settings.paintTextTop));
+
+            top += topTextHeight + 3;
+        } else {
+            top = 15;
+        }
+
+        //10 : padding bottom
+        model.layout(width, settings.barHeight, top, settings.barHeight + 10);
+        settings.paddingCorners = model.getPaddingCorners();
+
+        this.bubbleY = Math.max(0, model.getBarCenterY() - bubbleHeight / 2f);
+    }
+
+    private void updateBubbleWidth() {
+        this.bubbleWidth = calculateBubbleTextWidth() + BUBBLE_PADDING_HORIZONTAL * 2f;
+        this.bubbleWidth = Math.max(BUBBLE_MIN_WITH, this.bubbleWidth);
+    }
+
+    /**
+     * @param peak value of the peak-hold marker, NaN if hidden
+     */
+    void draw(Canvas canvas, float peak) {
+        canvas.save();
+        {
+
+            final float paddingLeft = settings.paddingCorners;
+            final float paddingRight = settings.paddingCorners;
+
+            final float radiusCorner = settings.barHeight / 2f;
+
+            final float barY = model.getBarY();
+            final float barCenterY = model.getBarCenterY();
+            final float indicatorCenterX = model.getIndicatorX() + paddingLeft;
+
+            { //background
+                final float centerCircleLeft = paddingLeft;
+                final float centerCircleRight = width - paddingRight;
+
+                //grey background
+                settings.paintBar.setColor(settings.colorBackground);
+
+                canvas.drawCircle(centerCircleLeft, barCenterY, radiusCorner, settings.paintBar);
+                canvas.drawCircle(centerCircleRight, barCenterY, radiusCorner, settings.paintBar);
+                canvas.drawRect(centerCircleLeft, barY, centerCircleRight, barY + settings.barHeight, settings.paintBar);
+
+
+                //color before indicator
+                settings.paintBar.setColor(settings.foregroundColor);
+
+                canvas.drawCircle(centerCircleLeft, barCenterY, radiusCorner, settings.paintBar);
+                canvas.drawRect(centerCircleLeft, barY, indicatorCenterX, barY + settings.barHeight, settings.paintBar);
+
+                //peak hold marker
+                if (peak > model.getValue()) {
+                    final float peakX = model.xOf(Math.min(model.getMax(), peak)) + paddingLeft;
+                    canvas.drawRect(peakX - PEAK_MARKER_WIDTH / 2f, barY, peakX + PEAK_MARKER_WIDTH / 2f, barY + settings.barHeight, settings.paintBar);
+                }
+            }
+
+
+            if (settings.displayMinMax) { //texts top (values)
+                final float textY = barY - DISTANCE_TEXT_BAR;
+                if (labelValueMin == null || labelValueMax == null) {
+                    labelValueMin = new TextLabel(formatValue(model.getMin()));
+                    labelValueMax = new TextLabel(formatValue(model.getMax()));
+                }
+                drawIndicatorsTextAbove(canvas, labelValueMin, settings.paintTextTop, 0 + paddingLeft, textY);
+                drawIndicatorsTextAbove(canvas, labelValueMax, settings.paintTextTop, width, textY);
+            }
+
+            //bubble
+            {
+
+                float bubbleCenterX = indicatorCenterX;
+                float trangleCenterX;
+
+                if (bubbleCenterX > width - bubbleWidth / 2f) {
+                    bubbleCenterX = width - bubbleWidth / 2f;
+                } else if (bubbleCenterX - bubbleWidth / 2f < 0) {
+                    bubbleCenterX = bubbleWidth / 2f;
+                }
+
+                trangleCenterX = (bubbleCenterX + indicatorCenterX) / 2f;
+
+                drawBubble(canvas, bubbleCenterX, trangleCenterX, bubbleY);
+            }
+        }
+
+        canvas.restore();
+    }
+
+    private String formatValue(float value) {
+        return textFormatter.format(value);
+    }
+
+    private String formatRegionValue(int region, float value) {
+        if (regionTextFormatter != null) {
+            return regionTextFormatter.format(region, value);
+        } else {
+            return formatValue(value);
+        }
+    }
+
+    private void drawIndicatorsTextAbove(Canvas canvas, TextLabel label, TextPaint paintText, float x, float y) {
+        y -= label.getHeight(paintText);
+
+        final int width = (int) label.getWidth(paintText);
+        if (x >= this.width - settings.paddingCorners) {
+            x = (this.width - width - settings.paddingCorners / 2f);
+        } else if (x <= 0) {
+            x = width / 2f;
+        } else {
+            x = (x - width / 2f);
+        }
+
+        if (x < 0) {
+            x = 0;
+        }
+
+        if (x + width > this.width) {
+            x = this.width - width;
+        }
+
+        label.draw(canvas, x, y, paintText);
+    }
+
+    private float calculateTextMultilineHeight(String text, TextPaint textPaint) {
+        return TextLabel.lineCount(text) * textPaint.getTextSize();
+    }
+
+    private String bubbleText() {
+        final float currentValue = model.getValue();
+        if (bubbleText == null || bubbleTextValue != currentValue) {
+            bubbleText = formatValue(currentValue);
+            bubbleTextValue = currentValue;
+        }
+        return bubbleText;
+    }
+
+    private float calculateBubbleTextWidth() {
+        return settings.paintTextBubble.measureText(bubbleText());
+    }
+
+    private void drawBubblePath(Canvas canvas, float triangleCenterX, float height, float width) {
+        final Path path = bubblePath;
+        path.rewind();
+
+        int padding = 3;
+        final Rect rect = bubbleRect;
+        rect.set(padding, padding, (int) width - padding, (int) (height) - padding);
+
+        final float roundRectHeight = (height) / 2;
+
+        path.moveTo(rect.left + roundRectHeight, rect.top);
+        path.lineTo(rect.right - roundRectHeight, rect.top);
+        path.quadTo(rect.right, rect.top, rect.right, rect.top + roundRectHeight);
+        path.lineTo(rect.right, rect.bottom - roundRectHeight);
+        path.quadTo(rect.right, rect.bottom, rect.right - roundRectHeight, rect.bottom);
+
+        path.lineTo(triangleCenterX, height - padding);
+        path.lineTo(triangleCenterX, height - padding);
+        path.lineTo(triangleCenterX, height - padding);
+
+        path.lineTo(rect.left + roundRectHeight, rect.bottom);
+        path.quadTo(rect.left, rect.bottom, rect.left, rect.bottom - roundRectHeight);
+        path.lineTo(rect.left, rect.top + roundRectHeight);
+        path.quadTo(rect.left, rect.top, rect.left + roundRectHeight, rect.top);
+        path.close();
+
+        canvas.drawPath(path, settings.paintBubble);
+    }
+
+    private void drawBubble(Canvas canvas, float centerX, float triangleCenterX, float y) {
+        final float width = this.bubbleWidth;
+        final float height = this.bubbleHeight;
+
+        canvas.save();
+        {
+            canvas.translate(centerX - width / 2f, y);
+            triangleCenterX -= (centerX - width / 2f);
+
+            settings.paintBubble.setStyle(Paint.Style.FILL);
+            settings.paintBubble.setColor(settings.foregroundColor);
+            drawBubblePath(canvas, triangleCenterX, height, width);
+
+            settings.paintBubble.setStyle(Paint.Style.FILL);
+        }
+
+        final String bubbleText = bubbleText();
+        canvas.drawText(bubbleText, BUBBLE_PADDING_HORIZONTAL, height / 2f - settings.paintTextBubble.getTextSize() / 2f - BUBBLE_PADDING_VERTICAL - settings.paintTextBubble.ascent(), settings.paintTextBubble);
+
+        canvas.restore();
+
+    }
+}
@@ -0,0 +1,349 @@
+package com.github.florent37.androidslidr;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.graphics.SurfaceTexture;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.support.annotation.Nullable;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.view.Surface;
+import android.view.TextureView;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Same bar and bubble as {@link Sushi}, drawn on a dedicated render thread.
+ * Frames are paced by the render thread itself (see setFrameInterval) and skipped when nothing changed,
+ * so high-frequency meters do not add work to the UI thread.
+ * Formatters are called on the render thread
+ */
+public class SushiTextureView extends TextureView implements TextureView.SurfaceTextureListener {
+
+    private static final String TAG = "SushiTextureView";
+    private static final long DEFAULT_FRAME_INTERVAL = 16;
+
+    //guards the renderer, the settings and their paints, and the surface, shared by the UI thread and the render thread
+    private final Object lock = new Object();
+
+    private Sushi.Settings settings;
+    private SushiRenderer renderer;
+
+    private HandlerThread renderThread;
+    private volatile Handler renderHandler;
+    private Surface surface;
+    private int surfaceWidth;
+    private volatile long frameIntervalMillis = DEFAULT_FRAME_INTERVAL;
+    private volatile long lastFrameTime;
+
+    private final AtomicInteger postedValueBits = new AtomicInteger();
+    private final AtomicBoolean valuePosted = new AtomicBoolean(false);
+    private final AtomicBoolean frameScheduled = new AtomicBoolean(false);
+    private volatile boolean dirty = true;
+    private volatile SushiMeter meter;
+
+    private final Runnable renderFrame = new Runnable() {
+        @Override
+        public void run() {
+            doFrame();
+        }
+    };
+
+    private final Sushi.Settings.Host settingsHost = new Sushi.Settings.Host() {
+        @Override
+        public Resources getResources() {
+            return SushiTextureView.this.getResources();
+        }
+
+        @Override
+        public Object getLock() {
+            return lock;
+        }
+
+        @Override
+        public void onSettingsChanged(boolean layoutChanged) {
+            if (layoutChanged) {
+                synchronized (lock) {
+                    renderer.layout(surfaceWidth);
+                }
+                requestLayout();
+            }
+            invalidateFrame();
+        }
+    };
+
+    public SushiTextureView(Context context) {
+        this(context, null);
+    }
+
+    public SushiTextureView(Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public SushiTextureView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+
+        init(context, attrs);
+    }
+
+    private void init(Context context, @Nullable AttributeSet attrs) {
+        setOpaque(false);
+        setSurfaceTextureListener(this);
+
+        this.settings = new Sushi.Settings(settingsHost);
+        this.renderer = new SushiRenderer(settings, new Sushi.EurosTextFormatter());
+        this.settings.init(context, attrs);
+    }
+
+    public Sushi.Settings getSettings() {
+        return settings;
+    }
+
+    public float getMax() {
+        synchronized (lock) {
+            return renderer.getMax();
+        }
+    }
+
+    public void setMax(float max) {
+        synchronized (lock) {
+            renderer.setMax(max);
+            renderer.layout(surfaceWidth);
+        }
+        invalidateFrame();
+    }
+
+    public void setMin(float min) {
+        synchronized (lock) {
+            renderer.setMin(min);
+            renderer.layout(surfaceWidth);
+        }
+        invalidateFrame();
+    }
+
+    public float getCurrentValue() {
+        synchronized (lock) {
+            return renderer.getCurrentValue();
+        }
+    }
+
+    public void setCurrentValue(float value) {
+        synchronized (lock) {
+            renderer.moveIndicator(renderer.clamp(value));
+        }
+        invalidateFrame();
+    }
+
+    /**
+     * Can be called from any thread : only the latest value is drawn, on the next frame
+     */
+    public void postValue(float value) {
+        postedValueBits.set(Float.floatToRawIntBits(value));
+        valuePosted.set(true);
+        requestFrame();
+    }
+
+    public void setMeterMode(boolean meterMode) {
+        if (meterMode && meter == null) {
+            meter = new SushiMeter(SushiMeter.DEFAULT_CAPACITY);
+        } else if (!meterMode && meter != null) {
+            meter = null;
+            invalidateFrame();
+        }
+    }
+
+    /**
+     * Meter mode only, can be called from one producer thread at a time. Does not allocate
+     */
+    public void pushSample(float sample) {
+        final SushiMeter meter = this.meter;
+        if (meter != null && meter.push(sample)) {
+            requestFrame();
+        }
+    }
+
+    public void setMeterDecimation(Sushi.Decimation decimation) {
+        setMeterMode(true);
+        synchronized (lock) {
+            meter.setDecimation(decimation);
+        }
+    }
+
+    public void setPeakHold(boolean peakHold, long holdMillis, float decayPerSecond) {
+        setMeterMode(true);
+        synchronized (lock) {
+            meter.setPeakHold(peakHold, holdMillis, decayPerSecond);
+        }
+        invalidateFrame();
+    }
+
+    public void setScale(Scale scale) {
+        synchronized (lock) {
+            renderer.setScale(scale);
+            renderer.layout(surfaceWidth);
+        }
+        invalidateFrame();
+    }
+
+    public void setTextFormatter(Sushi.TextFormatter textFormatter) {
+        synchronized (lock) {
+            renderer.setTextFormatter(textFormatter);
+            renderer.layout(surfaceWidth);
+        }
+        invalidateFrame();
+    }
+
+    public void setRegionTextFormatter(Sushi.RegionTextFormatter regionTextFormatter) {
+        synchronized (lock) {
+            renderer.setRegionTextFormatter(regionTextFormatter);
+            renderer.layout(surfaceWidth);
+        }
+        invalidateFrame();
+    }
+
+    /**
+     * Minimum delay between two frames drawn by the render thread
+     */
+    public void setFrameInterval(long frameIntervalMillis) {
+        this.frameIntervalMillis = frameIntervalMillis;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        final int width = MeasureSpec.getSize(widthMeasureSpec);
+        final int height;
+        synchronized (lock) {
+            renderer.layout(width);
+            height = renderer.getCalculatedHeight();
+        }
+        setMeasuredDimension(width, height);
+    }
+
+    private void invalidateFrame() {
+        dirty = true;
+        requestFrame();
+    }
+
+    private void requestFrame() {
+        final Handler handler = renderHandler;
+        if (handler != null && frameScheduled.compareAndSet(false, true)) {
+            handler.postAtTime(renderFrame, Math.max(SystemClock.uptimeMillis(), lastFrameTime + frameIntervalMillis));
+        }
+    }
+
+    /**
+     * Render thread
+     */
+    private void doFrame() {
+        frameScheduled.set(false);
+        final long now = SystemClock.uptimeMillis();
+
+        boolean needsNextFrame = false;
+        synchronized (lock) {
+            if (surface == null) {
+                return;
+            }
+            boolean changed = dirty;
+            dirty = false;
+
+            if (valuePosted.getAndSet(false)) {
+                final float value = renderer.clamp(Float.intBitsToFloat(postedValueBits.get()));
+                if (value != renderer.getCurrentValue()) {
+                    renderer.moveIndicator(value);
+                    changed = true;
+                }
+            }
+
+            float peak = Float.NaN;
+            final SushiMeter meter = this.meter;
+            if (meter != null) {
+                final float value = meter.drain();
+                if (!Float.isNaN(value) && renderer.clamp(value) != renderer.getCurrentValue()) {
+                    renderer.moveIndicator(renderer.clamp(value));
+                    changed = true;
+                }
+                if (meter.isPeakHold()) {
+                    changed |= meter.updatePeak(renderer.getCurrentValue(), now);
+                    needsNextFrame = meter.isPeakAbove(renderer.getCurrentValue());
+                    peak = meter.getPeak();
+                }
+                if (!needsNextFrame) {
+                    meter.onFramesStopped();
+                }
+            }
+
+            if (changed) {
+                lastFrameTime = now;
+                final Canvas canvas;
+                try {
+                    canvas = surface.lockCanvas(null);
+                } catch (Surface.OutOfResourcesException e) {
+                    //drawn again on the next frame
+                    Log.w(TAG, "cannot lock the surface", e);
+                    dirty = true;
+                    return;
+                }
+                try {
+                    canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+                    renderer.draw(canvas, peak);
+                } finally {
+                    surface.unlockCanvasAndPost(canvas);
+                }
+            }
+        }
+        if (needsNextFrame) {
+            requestFrame();
+        }
+    }
+
+    @Override
+    public void onSurfaceTextureAvailable(SurfaceTexture surfaceTexture, int width, int height) {
+        synchronized (lock) {
+            surface = new Surface(surfaceTexture);
+            surfaceWidth = width;
+            renderer.layout(width);
+        }
+        renderThread = new HandlerThread("SushiRender");
+        renderThread.start();
+        renderHandler = new Handler(renderThread.getLooper());
+        invalidateFrame();
+    }
+
+    @Override
+    public void onSurfaceTextureSizeChanged(SurfaceTexture surfaceTexture, int width, int height) {
+        synchronized (lock) {
+            surfaceWidth = width;
+            renderer.layout(width);
+        }
+        invalidateFrame();
+    }
+
+    @Override
+    public boolean onSurfaceTextureDestroyed(SurfaceTexture surfaceTexture) {
+        renderHandler = null;
+        if (renderThread != null) {
+            renderThread.quit();
+            renderThread = null;
+        }
+        synchronized (lock) {
+            //the render thread only draws while holding the lock, nothing is drawn after this point
+            if (surface != null) {
+                surface.release();
+                surface = null;
+            }
+        }
+        frameScheduled.set(false);
+        return true;
+    }
+
+    @Override
+    public void onSurfaceTextureUpdated(SurfaceTexture surfaceTexture) {
+
+    }
+}
@@ -0,0 +1,155 @@
+package com.github.florent37.androidslidr;
+
+import android.graphics.Canvas;
+import android.graphics.Typeface;
+import android.text.TextPaint;
+
+/**
+ * A static (multiline) text, split and measured once : lines, width of each line and height
+ * are only computed again when the text size or the typeface of the paint changes
+ */
+final class TextLabel {
+
+    static final TextLabel EMPTY = new TextLabel("");
+
+    private final String text;
+    private final String[] lines;
+    private final float[] lineWidths;
+    private float width;
+
+    private float preparedTextSize = -1;
+    private Typeface preparedTypeface;
+
+    TextLabel(String text) {
+        this.text = text != null ? text : "";
+        this.lines = splitLines(this.text);
+        this.lineWidths = new float[lines.length];
+    }
+
+    /**
+     * Number of lines of splitLines(), without splitting : at least one, trailing empty lines are not counted
+     */
+    static int lineCount(String text) {
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == '\n') {
+            end--;
+        }
+        int count = 1;
+        for (int i = 0; i < end; ++i) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Same lines as text.split("\n"), without the regex
+     */
+    private static String[] splitLines(String text) {
+        int count = 1;
+        for (int i = 0; i < text.length(); ++i) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        final String[] lines = new String[count];
+        int start = 0;
+        for (int i = 0; i < count; ++i) {
+            int end = text.indexOf('\n', start);
+            if (end < 0) {
+                end = text.length();
+            }
+            lines[i] = text.substring(start, end);
+            start = end + 1;
+        }
+
+        //split() drops trailing empty lines
+        int length = count;
+        while (length > 1 && lines[length - 1].isEmpty()) {
+            length--;
+        }
+        if (length == count) {
+            return lines;
+        }
+        final String[] trimmed = new String[length];
+        System.arraycopy(lines, 0, trimmed, 0, length);
+        return trimmed;
+    }
+
+    String getText() {
+        return text;
+    }
+
+    boolean isEmpty() {
+        return text.isEmpty();
+    }
+
+    int getLineCount() {
+        return lines.length;
+    }
+
+    float getHeight(TextPaint paint) {
+        return lines.length * paint.getTextSize();
+    }
+
+    float getWidth(TextPaint paint) {
+        prepare(paint);
+        return width;
+    }
+
+    void prepare(TextPaint paint) {
+        if (preparedTextSize == paint.getTextSize() && preparedTypeface == paint.getTypeface()) {
+            return;
+        }
+        width = 0;
+        for (int i = 0; i < lines.length; ++i) {
+            lineWidths[i] = (int) paint.measureText(lines[i]);
+            width = Math.max(width, lineWidths[i]);
+        }
+        preparedTextSize = paint.getTextSize();
+        preparedTypeface = paint.getTypeface();
+    }
+
+    /**
+     * Each line centered on x (if centered), kept inside the canvas, from the top y
+     */
+    void drawMultiline(Canvas canvas, float x, float y, TextPaint paint, boolean centered, float canvasWidth, float paddingRight) {
+        prepare(paint);
+        final float lineHeight = paint.getTextSize();
+        final float ascent = paint.ascent();
+        float lineY = y;
+        for (int i = 0; i < lines.length; ++i) {
+            final float lineWidth = lineWidths[i];
+            float lineX = x;
+            if (centered) {
+                lineX -= lineWidth / 2f;
+            }
+            if (lineX < 0) {
+                lineX = 0;
+            }
+
+            final float right = lineX + lineWidth;
+            if (right > canvasWidth) {
+                lineX = canvasWidth - lineWidth - paddingRight;
+            }
+
+            canvas.drawText(lines[i], lineX, lineY - ascent, paint);
+            lineY += lineHeight;
+        }
+    }
+
+    /**
+     * The lines centered inside the label width, from the top left (x, y)
+     */
+    void draw(Canvas canvas, float x, float y, TextPaint paint) {
+        prepare(paint);
+        final float lineHeight = paint.getTextSize();
+        final float ascent = paint.ascent();
+        float lineY = y;
+        for (int i = 0; i < lines.length; ++i) {
+            canvas.drawText(lines[i], x + (width - lineWidths[i]) / 2f, lineY - ascent, paint);
+            lineY += lineHeight;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.github.florent37.androidslidr;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Values of a slidr, delivered to any number of subscribers, each one on its own executor.
+ * Values are conflated : a subscriber has at most one pending delivery and always receives the latest value,
+ * a slow subscriber skips values instead of queuing them or blocking the slidr.
+ * The deliveries of a subscriber never overlap, even on a multi-thread executor, and never go back to an older value.
+ * A subscription whose executor rejects a delivery is dropped.
+ * subscribe() / unsubscribe() can be called from any thread, a publication does not allocate
+ */
+public final class ValueStream {
+
+    /**
+     * Delivers on the main thread
+     */
+    public static final Executor MAIN_THREAD = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            PostedValue.MAIN_HANDLER.post(command);
+        }
+    };
+
+    private static final Subscription[] NO_SUBSCRIPTION = new Subscription[0];
+
+    private final Object lock = new Object();
+    //copied on write, read without lock by publish()
+    private volatile Subscription[] subscriptions = NO_SUBSCRIPTION;
+
+    ValueStream() {
+    }
+
+    public Subscription subscribe(Executor executor, Subscriber subscriber) {
+        final Subscription subscription = new Subscription(this, executor, subscriber);
+        synchronized (lock) {
+            final Subscription[] current = subscriptions;
+            final Subscription[] updated = new Subscription[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, current.length);
+            updated[current.length] = subscription;
+            subscriptions = updated;
+        }
+        return subscription;
+    }
+
+    public void unsubscribe(Subscription subscription) {
+        subscription.active = false;
+        synchronized (lock) {
+            final Subscription[] current = subscriptions;
+            int index = -1;
+            for (int i = 0; i < current.length; ++i) {
+                if (current[i] == subscription) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return;
+            }
+            if (current.length == 1) {
+                subscriptions = NO_SUBSCRIPTION;
+                return;
+            }
+            final Subscription[] updated = new Subscription[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+            subscriptions = updated;
+        }
+    }
+
+    boolean hasSubscribers() {
+        return subscriptions.length > 0;
+    }
+
+    void publish(float value) {
+        final Subscription[] subscriptions = this.subscriptions;
+        for (int i = 0; i < subscriptions.length; ++i) {
+            subscriptions[i].publish(value);
+        }
+    }
+
+    public interface Subscriber {
+        void onValue(float value);
+    }
+
+    public static final class Subscription implements Runnable {
+        private final ValueStream stream;
+        private final Executor executor;
+        private final Subscriber subscriber;
+        private final AtomicInteger valueBits = new AtomicInteger();
+        //true from the scheduling of a delivery to the end of its run : one run at a time
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        //a value was published since the last read
+        private final AtomicBoolean pending = new AtomicBoolean(false);
+        private volatile boolean active = true;
+
+        private Subscription(ValueStream stream, Executor executor, Subscriber subscriber) {
+            this.stream = stream;
+            this.executor = executor;
+            this.subscriber = subscriber;
+        }
+
+        private void publish(float value) {
+            valueBits.set(Float.floatToRawIntBits(value));
+            pending.set(true);
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    //shut down executor : nothing will be delivered anymore
+                    scheduled.set(false);
+                    unsubscribe();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            do {
+                //reset before reading : a value published after this line is delivered by the next loop
+                pending.set(false);
+                try {
+                    if (active) {
+                        subscriber.onValue(Float.intBitsToFloat(valueBits.get()));
+                    }
+                } catch (RuntimeException e) {
+                    scheduled.set(false);
+                    throw e;
+                }
+                scheduled.set(false);
+                //a value published during the delivery could not schedule a run : drain it, unless a new run took it
+            } while (pending.get() && scheduled.compareAndSet(false, true));
+        }
+
+        public void unsubscribe() {
+            stream.unsubscribe(this);
+        }
+    }
+}
@@ -0,0 +1,505 @@
+package com.github.florent37.androidslidr;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PorterDuff;
+import android.graphics.RectF;
+import android.os.SystemClock;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.view.View;
+import android.view.animation.AnimationUtils;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Allocation budgets of the hot paths of Slidr and Sushi : draws, touch moves, animation frames and setCurrentValue storms.
+ * Each path is warmed up, then the bytes allocated by the test thread are counted against the budget of the path, per event.
+ * With texts from a table formatted once, the views themselves may not allocate : the budget is 0.
+ * With the default formatters (String.format), the budget is the formatting of each new value.
+ * The JVM may allocate once while it compiles a path : the lowest count of RUNS runs is kept, an allocation per event shows in every run.
+ * Canvas, Path, VelocityTracker and GestureDetector are replaced by quiet shadows, the shadows of Robolectric record the calls (and allocate)
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23, shadows = {
+        AllocationBudgetTest.ShadowQuietCanvas.class,
+        AllocationBudgetTest.ShadowQuietPath.class,
+        AllocationBudgetTest.ShadowQuietVelocityTracker.class,
+        AllocationBudgetTest.ShadowQuietGestureDetector.class
+})
+public class AllocationBudgetTest {
+
+    //above the 127 calls after which the JVM customizes the method handles of the Robolectric shadows
+    private static final int WARM_UP = 200;
+    private static final int EVENTS = 500;
+    //counted runs of EVENTS, the lowest count is kept
+    private static final int RUNS = 3;
+    //setCurrentValue calls per event
+    private static final int STORM_CALLS = 20;
+    //long enough to stay inside the animation for every frame
+    private static final long ANIMATION_MILLIS = 60000;
+    private static final long FRAME_MILLIS = 16;
+
+    private static final int WIDTH = 1080;
+    private static final int MAX = 1000;
+
+    private static final long NO_ALLOCATION = 0;
+    //String.format() of one new value by the default formatters : about 930 bytes on the JVM 8
+    private static final long FORMAT_BYTES = 1024;
+    //updateValues() of setCurrentValue() formats the bubble text and the texts of the two regions
+    private static final int SET_VALUE_FORMATS = 3;
+
+    private static com.sun.management.ThreadMXBean threads;
+    //bytes allocated by a read of the counter itself
+    private static long readCost;
+
+    private final String[] valueTexts = new String[MAX + 1];
+    private final Canvas canvas = new Canvas();
+
+    private QuietSlidr slidr;
+    private QuietSushi sushi;
+
+    @BeforeClass
+    public static void setUpCounter() {
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (threads.isThreadAllocatedMemorySupported()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+            readCost = Long.MAX_VALUE;
+            long previous = allocatedBytes();
+            for (int i = 0; i < 100; ++i) {
+                final long current = allocatedBytes();
+                readCost = Math.min(readCost, current - previous);
+                previous = current;
+            }
+        }
+    }
+
+    @Before
+    public void setUp() {
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        //the frames are driven by the tests
+        ShadowLooper.pauseMainLooper();
+
+        for (int i = 0; i <= MAX; ++i) {
+            valueTexts[i] = i + " EUR";
+        }
+        final Context context = RuntimeEnvironment.application;
+
+        slidr = new QuietSlidr(context);
+        slidr.setMax(MAX);
+        slidr.setTextFormatter(new Slidr.TextFormatter() {
+            @Override
+            public String format(float value) {
+                return valueText(value);
+            }
+        });
+        //handleTouch() looks for a scrolling parent
+        new FrameLayout(context).addView(slidr);
+        layout(slidr);
+
+        sushi = new QuietSushi(context);
+        sushi.setMax(MAX);
+        sushi.setTextFormatter(new Sushi.TextFormatter() {
+            @Override
+            public String format(float value) {
+                return valueText(value);
+            }
+        });
+        layout(sushi);
+    }
+
+    private String valueText(float value) {
+        return valueTexts[Math.max(0, Math.min(MAX, Math.round(value)))];
+    }
+
+    private static void layout(View view) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+    }
+
+    //region slidr
+
+    @Test
+    public void slidrDraw() {
+        assertSlidrDrawBudget("slidr draw", NO_ALLOCATION);
+    }
+
+    @Test
+    public void slidrDraw_defaultFormatter() {
+        slidr.setTextFormatter(slidr.new EurosTextFormatter());
+        //the texts are formatted once, then cached
+        assertSlidrDrawBudget("slidr draw, default formatter", NO_ALLOCATION);
+    }
+
+    @Test
+    public void slidrDraw_steps() {
+        slidr.addStep(new Slidr.Step("test", 250, Color.BLUE, Color.RED));
+        slidr.addStep(new Slidr.Step("test2", 750, Color.GREEN, Color.RED));
+        assertSlidrDrawBudget("slidr draw, steps", NO_ALLOCATION);
+    }
+
+    @Test
+    public void slidrMove() {
+        assertSlidrMoveBudget("slidr move", NO_ALLOCATION);
+    }
+
+    @Test
+    public void slidrMove_defaultFormatter() {
+        slidr.setTextFormatter(slidr.new EurosTextFormatter());
+        //a new value on each move : the bubble text is formatted
+        assertSlidrMoveBudget("slidr move, default formatter", FORMAT_BYTES);
+    }
+
+    @Test
+    public void slidrAnimationFrames() {
+        assertSlidrAnimationBudget("slidr animation frames", NO_ALLOCATION);
+    }
+
+    @Test
+    public void slidrAnimationFrames_defaultFormatter() {
+        slidr.setTextFormatter(slidr.new EurosTextFormatter());
+        assertSlidrAnimationBudget("slidr animation frames, default formatter", FORMAT_BYTES);
+    }
+
+    @Test
+    public void slidrSetCurrentValueStorm() {
+        assertSlidrStormBudget("slidr setCurrentValue storm", NO_ALLOCATION);
+    }
+
+    @Test
+    public void slidrSetCurrentValueStorm_defaultFormatter() {
+        slidr.setTextFormatter(slidr.new EurosTextFormatter());
+        assertSlidrStormBudget("slidr setCurrentValue storm, default formatter", STORM_CALLS * SET_VALUE_FORMATS * FORMAT_BYTES);
+    }
+
+    private void assertSlidrDrawBudget(String path, long budgetPerEvent) {
+        slidr.setCurrentValue(300);
+        assertBudget(path, budgetPerEvent, new Scenario() {
+            @Override
+            public void run(int event) {
+                slidr.onDraw(canvas);
+            }
+        });
+    }
+
+    private void assertSlidrMoveBudget(String path, long budgetPerEvent) {
+        final float y = slidr.getHeight() - 1;
+        final long downTime = SystemClock.uptimeMillis();
+        final MotionEvent down = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, WIDTH / 2f, y, 0);
+        slidr.handleTouch(down);
+        down.recycle();
+
+        final MotionEvent move = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_MOVE, WIDTH / 2f, y, 0);
+        assertBudget(path, budgetPerEvent, new Scenario() {
+            @Override
+            public void run(int event) {
+                //back and forth along the bar : a new value on each move
+                move.setLocation((event * 7) % WIDTH, y);
+                slidr.handleTouch(move);
+            }
+        });
+        move.recycle();
+    }
+
+    private void assertSlidrAnimationBudget(String path, long budgetPerEvent) {
+        final long startTime = AnimationUtils.currentAnimationTimeMillis();
+        slidr.animateTo(MAX, ANIMATION_MILLIS, null);
+        try {
+            assertBudget(path, budgetPerEvent, new Scenario() {
+                @Override
+                public void run(int event) {
+                    FrameTicker.getInstance().doFrame(startTime + (event + 1) * FRAME_MILLIS);
+                }
+            });
+        } finally {
+            //the frame ticker is shared by the tests
+            slidr.cancelAnimation();
+        }
+    }
+
+    private void assertSlidrStormBudget(String path, long budgetPerEvent) {
+        assertBudget(path, budgetPerEvent, new Scenario() {
+            @Override
+            public void run(int event) {
+                for (int i = 0; i < STORM_CALLS; ++i) {
+                    slidr.setCurrentValue((event * STORM_CALLS + i) % MAX);
+                }
+            }
+        });
+    }
+
+    //endregion
+
+    //region sushi
+
+    @Test
+    public void sushiDraw() {
+        assertSushiDrawBudget("sushi draw", NO_ALLOCATION);
+    }
+
+    @Test
+    public void sushiDraw_defaultFormatter() {
+        sushi.setTextFormatter(new Sushi.EurosTextFormatter());
+        assertSushiDrawBudget("sushi draw, default formatter", NO_ALLOCATION);
+    }
+
+    @Test
+    public void sushiAnimationFrames() {
+        assertSushiAnimationBudget("sushi animation frames", NO_ALLOCATION);
+    }
+
+    @Test
+    public void sushiAnimationFrames_defaultFormatter() {
+        sushi.setTextFormatter(new Sushi.EurosTextFormatter());
+        assertSushiAnimationBudget("sushi animation frames, default formatter", FORMAT_BYTES);
+    }
+
+    @Test
+    public void sushiSetCurrentValueStorm() {
+        assertSushiStormBudget("sushi setCurrentValue storm", NO_ALLOCATION);
+    }
+
+    @Test
+    public void sushiSetCurrentValueStorm_defaultFormatter() {
+        sushi.setTextFormatter(new Sushi.EurosTextFormatter());
+        assertSushiStormBudget("sushi setCurrentValue storm, default formatter", STORM_CALLS * SET_VALUE_FORMATS * FORMAT_BYTES);
+    }
+
+    private void assertSushiDrawBudget(String path, long budgetPerEvent) {
+        sushi.setCurrentValue(300);
+        assertBudget(path, budgetPerEvent, new Scenario() {
+            @Override
+            public void run(int event) {
+                sushi.onDraw(canvas);
+            }
+        });
+    }
+
+    private void assertSushiAnimationBudget(String path, long budgetPerEvent) {
+        final long startTime = AnimationUtils.currentAnimationTimeMillis();
+        sushi.animateTo(MAX, ANIMATION_MILLIS, null);
+        try {
+            assertBudget(path, budgetPerEvent, new Scenario() {
+                @Override
+                public void run(int event) {
+                    FrameTicker.getInstance().doFrame(startTime + (event + 1) * FRAME_MILLIS);
+                }
+            });
+        } finally {
+            sushi.cancelAnimation();
+        }
+    }
+
+    private void assertSushiStormBudget(String path, long budgetPerEvent) {
+        assertBudget(path, budgetPerEvent, new Scenario() {
+            @Override
+            public void run(int event) {
+                for (int i = 0; i < STORM_CALLS; ++i) {
+                    sushi.setCurrentValue((event * STORM_CALLS + i) % MAX);
+                }
+            }
+        });
+    }
+
+    //endregion
+
+    private interface Scenario {
+        void run(int event);
+    }
+
+    /**
+     * Runs WARM_UP events without counting them, then counts the bytes allocated by the next EVENTS, up to RUNS times
+     *
+     * @param budgetPerEvent bytes the path may allocate per event
+     */
+    private static void assertBudget(String path, long budgetPerEvent, Scenario scenario) {
+        int event = 0;
+        for (; event < WARM_UP; ++event) {
+            scenario.run(event);
+        }
+        final long budget = budgetPerEvent * EVENTS;
+        long allocated = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS && allocated > budget; ++run) {
+            final long start = allocatedBytes();
+            for (int i = 0; i < EVENTS; ++i) {
+                scenario.run(event++);
+            }
+            allocated = Math.min(allocated, Math.max(0, allocatedBytes() - start - readCost));
+        }
+        assertTrue(path + " : " + allocated + " bytes allocated by " + EVENTS + " events, budget " + budget,
+                allocated <= budget);
+    }
+
+    private static long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Detached : the invalidations have no effect, the shadow of View records them
+     */
+    static class QuietSlidr extends Slidr {
+        QuietSlidr(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void invalidate() {
+        }
+
+        @Override
+        public void invalidate(int l, int t, int r, int b) {
+        }
+
+        @Override
+        public void postInvalidate() {
+        }
+    }
+
+    static class QuietSushi extends Sushi {
+        QuietSushi(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void invalidate() {
+        }
+
+        @Override
+        public void postInvalidate() {
+        }
+    }
+
+    @Implements(value = Canvas.class, callThroughByDefault = false)
+    public static class ShadowQuietCanvas {
+        @Implementation
+        public void __constructor__() {
+        }
+
+        @Implementation
+        public int save() {
+            return 1;
+        }
+
+        @Implementation
+        public void restore() {
+        }
+
+        @Implementation
+        public void translate(float dx, float dy) {
+        }
+
+        @Implementation
+        public boolean clipRect(float left, float top, float right, float bottom) {
+            return true;
+        }
+
+        @Implementation
+        public int getWidth() {
+            return WIDTH;
+        }
+
+        @Implementation
+        public void drawColor(int color, PorterDuff.Mode mode) {
+        }
+
+        @Implementation
+        public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+        }
+
+        @Implementation
+        public void drawCircle(float cx, float cy, float radius, Paint paint) {
+        }
+
+        @Implementation
+        public void drawLines(float[] pts, int offset, int count, Paint paint) {
+        }
+
+        @Implementation
+        public void drawPath(Path path, Paint paint) {
+        }
+
+        @Implementation
+        public void drawText(String text, float x, float y, Paint paint) {
+        }
+    }
+
+    /**
+     * The framework tracker runs on its native methods, no-ops under Robolectric : only the recording shadow is removed
+     */
+    @Implements(VelocityTracker.class)
+    public static class ShadowQuietVelocityTracker {
+        @Implementation
+        public void addMovement(MotionEvent event) {
+        }
+
+        @Implementation
+        public void clear() {
+        }
+    }
+
+    /**
+     * The framework detector runs as is, the shadow of Robolectric records each event
+     */
+    @Implements(GestureDetector.class)
+    public static class ShadowQuietGestureDetector {
+    }
+
+    @Implements(value = Path.class, callThroughByDefault = false)
+    public static class ShadowQuietPath {
+        @Implementation
+        public void __constructor__() {
+        }
+
+        @Implementation
+        public void reset() {
+        }
+
+        @Implementation
+        public void rewind() {
+        }
+
+        @Implementation
+        public void moveTo(float x, float y) {
+        }
+
+        @Implementation
+        public void lineTo(float x, float y) {
+        }
+
+        @Implementation
+        public void quadTo(float x1, float y1, float x2, float y2) {
+        }
+
+        @Implementation
+        public void close() {
+        }
+
+        @Implementation
+        public void addRect(float left, float top, float right, float bottom, Path.Direction dir) {
+        }
+
+        @Implementation
+        public void addArc(RectF oval, float startAngle, float sweepAngle) {
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package com.github.florent37.androidslidr;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SlidrModelTest {
+
+    private static final float DELTA = 0.01f;
+
+    //bar of 1000px : a linear x is its value
+    private static final float WIDTH = 1040;
+    private static final float BAR_HEIGHT = 20;
+
+    private SlidrModel model;
+
+    @Before
+    public void setUp() {
+        model = new SlidrModel();
+        model.setMin(0);
+        model.setMax(1000);
+        model.layout(WIDTH, BAR_HEIGHT, 0, 0);
+    }
+
+    private void setSteps(float... values) {
+        model.setSteps(values, values.length);
+        model.layout(WIDTH, BAR_HEIGHT, 0, 0);
+    }
+
+    //region range & value
+
+    @Test
+    public void clamp() {
+        assertEquals(0f, model.clamp(-10), 0f);
+        assertEquals(1000f, model.clamp(1010), 0f);
+        assertEquals(420f, model.clamp(420), 0f);
+    }
+
+    @Test
+    public void layout() {
+        assertEquals(BAR_HEIGHT, model.getPaddingCorners(), 0f);
+        assertEquals(1000f, model.getBarWidth(), 0f);
+        assertEquals(BAR_HEIGHT / 2f, model.getBarCenterY(), 0f);
+    }
+
+    @Test
+    public void setIndicatorX_keptOnTheBar() {
+        model.setIndicatorX(250);
+        assertEquals(250f, model.getValue(), DELTA);
+
+        model.setIndicatorX(-50);
+        assertEquals(0f, model.getIndicatorX(), 0f);
+        assertEquals(0f, model.getValue(), DELTA);
+
+        model.setIndicatorX(2000);
+        assertEquals(1000f, model.getIndicatorX(), 0f);
+        assertEquals(1000f, model.getValue(), DELTA);
+    }
+
+    //endregion
+
+    //region scales
+
+    @Test
+    public void roundTrip_linear() {
+        assertRoundTrip(Scale.LINEAR);
+    }
+
+    @Test
+    public void roundTrip_logarithmic() {
+        assertRoundTrip(new Scale.Logarithmic());
+    }
+
+    @Test
+    public void roundTrip_power() {
+        assertRoundTrip(new Scale.Power(2));
+    }
+
+    @Test
+    public void roundTrip_piecewise() {
+        assertRoundTrip(new Scale.Piecewise(new float[]{0.5f}, new float[]{100}));
+    }
+
+    @Test
+    public void roundTrip_lookupTable() {
+        model.setScaleLookupTable(true);
+        assertRoundTrip(new Scale.Power(2));
+    }
+
+    @Test
+    public void roundTrip_zoomed() {
+        model.setScale(new Scale.Logarithmic());
+        model.setValue(500);
+        model.zoom(4, 500);
+        for (float x = 0; x <= 1000; x += 50) {
+            assertEquals(x, model.xOf(model.valueAt(x)), 0.1f);
+        }
+    }
+
+    private void assertRoundTrip(Scale scale) {
+        model.setScale(scale);
+        for (float x = 0; x <= 1000; x += 50) {
+            assertEquals(x, model.xOf(model.valueAt(x)), 0.1f);
+        }
+        assertEquals(0f, model.valueAt(0), DELTA);
+        assertEquals(1000f, model.valueAt(1000), DELTA);
+    }
+
+    @Test
+    public void piecewise_breakpoint() {
+        model.setScale(new Scale.Piecewise(new float[]{0.5f}, new float[]{100}));
+        assertEquals(100f, model.valueAt(500), DELTA);
+        assertEquals(500f, model.xOf(100), DELTA);
+    }
+
+    //endregion
+
+    //region snap
+
+    @Test
+    public void snap_toSteps() {
+        setSteps(200, 500);
+
+        assertEquals(500f, model.snapPosition(480, true, 0), DELTA);
+        assertEquals(500f, model.getSnapValue(), DELTA);
+
+        assertEquals(200f, model.snapPosition(260, true, 0), DELTA);
+        assertEquals(200f, model.getSnapValue(), DELTA);
+    }
+
+    @Test
+    public void snap_toEnds() {
+        setSteps(200, 500);
+
+        assertEquals(0f, model.snapPosition(50, true, 0), DELTA);
+        assertEquals(0f, model.getSnapValue(), DELTA);
+
+        assertEquals(1000f, model.snapPosition(900, true, 0), DELTA);
+        assertEquals(1000f, model.getSnapValue(), DELTA);
+    }
+
+    @Test
+    public void snap_toQuantum() {
+        assertEquals(100f, model.snapPosition(123, false, 50), DELTA);
+        assertEquals(100f, model.getSnapValue(), DELTA);
+
+        //clamped to the range
+        assertEquals(1000f, model.snapPosition(990, false, 600), DELTA);
+        assertEquals(1000f, model.getSnapValue(), DELTA);
+    }
+
+    @Test
+    public void snap_nearestOfStepsAndQuantum() {
+        setSteps(230);
+
+        assertEquals(230f, model.snapPosition(225, true, 100), DELTA);
+        assertEquals(300f, model.snapPosition(290, true, 100), DELTA);
+    }
+
+    @Test
+    public void snap_nothing() {
+        assertTrue(Float.isNaN(model.snapPosition(300, true, 0)));
+        assertTrue(Float.isNaN(model.snapPosition(300, false, 0)));
+    }
+
+    @Test
+    public void snap_relativeToMin() {
+        model.setMin(100);
+        model.setMax(1100);
+        setSteps(300);
+
+        assertEquals(300f, model.snapPosition(310, true, 0), DELTA);
+        assertEquals(400f, model.getSnapValue(), DELTA);
+    }
+
+    //endregion
+
+    //region steps
+
+    @Test
+    public void stepBelowValue() {
+        setSteps(100, 200, 300);
+
+        model.setValue(0);
+        assertEquals(-1, model.getStepBelowValue());
+
+        //strictly below
+        model.setValue(100);
+        assertEquals(-1, model.getStepBelowValue());
+
+        model.setValue(250);
+        assertEquals(1, model.getStepBelowValue());
+
+        model.setValue(1000);
+        assertEquals(2, model.getStepBelowValue());
+    }
+
+    @Test
+    public void stepBelowValue_relativeToMin() {
+        model.setMin(100);
+        model.setMax(1100);
+        setSteps(100, 200);
+
+        model.setValue(250);
+        assertEquals(0, model.getStepBelowValue());
+    }
+
+    @Test
+    public void stepBelowValue_noStep() {
+        model.setValue(500);
+        assertEquals(-1, model.getStepBelowValue());
+    }
+
+    @Test
+    public void stepPositions() {
+        setSteps(100, 600);
+
+        assertEquals(100f, model.getStepX(0), DELTA);
+        assertEquals(600f, model.getStepX(1), DELTA);
+        assertEquals(0.6f, model.getStepFraction(1), DELTA);
+    }
+
+    //endregion
+
+    //region regions
+
+    @Test
+    public void regions_layout() {
+        model.setRegions(new float[]{300, 600}, new int[]{1, 2, 3, 4});
+        model.setValue(450);
+        model.updateRegions();
+
+        final RegionSegments regions = model.getRegions();
+        assertEquals(4, regions.getCount());
+        assertEquals(1, regions.getIndicatorRegion());
+        assertRegion(regions, 0, 0, 300);
+        assertRegion(regions, 1, 300, 450);
+        assertRegion(regions, 2, 450, 600);
+        assertRegion(regions, 3, 600, 1000);
+
+        assertEquals(150f, regions.getLabelValue(1, true), DELTA);
+        assertEquals(300f, regions.getLabelValue(1, false), DELTA);
+        assertEquals(375f, regions.getLabelX(1, true), DELTA);
+    }
+
+    @Test
+    public void regions_indicatorBeforeTheBreakpoints() {
+        model.setRegions(new float[]{300, 600}, new int[]{1, 2, 3, 4});
+        model.setValue(100);
+        model.updateRegions();
+
+        final RegionSegments regions = model.getRegions();
+        assertEquals(0, regions.getIndicatorRegion());
+        assertRegion(regions, 0, 0, 100);
+        assertRegion(regions, 1, 100, 300);
+        assertRegion(regions, 2, 300, 600);
+        assertRegion(regions, 3, 600, 1000);
+    }
+
+    @Test
+    public void regions_staleLabels() {
+        model.setRegions(new float[]{300, 600}, new int[]{1, 2, 3, 4});
+        model.setValue(450);
+        model.updateRegions();
+        final RegionSegments regions = model.getRegions();
+        for (int i = 0; i < regions.getCount(); ++i) {
+            regions.onLabelFormatted(i);
+        }
+
+        //only the regions bounded by the indicator change
+        model.setValue(500);
+        model.updateRegions();
+        assertFalse(regions.isLabelStale(0));
+        assertTrue(regions.isLabelStale(1));
+        assertTrue(regions.isLabelStale(2));
+        assertFalse(regions.isLabelStale(3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void regions_oneColorPerRegion() {
+        model.setRegions(new float[]{300, 600}, new int[]{1, 2, 3});
+    }
+
+    private static void assertRegion(RegionSegments regions, int region, float startX, float endX) {
+        assertEquals(startX, regions.getStartX(region), DELTA);
+        assertEquals(endX, regions.getEndX(region), DELTA);
+    }
+
+    //endregion
+
+    //region viewport
+
+    @Test
+    public void zoom_aroundFocus() {
+        model.setValue(500);
+        model.zoom(4, 500);
+
+        assertTrue(model.isZoomed());
+        assertEquals(4f, model.getZoom(), DELTA);
+        assertEquals(375f, model.getViewportMin(), DELTA);
+        assertEquals(625f, model.getViewportMax(), DELTA);
+        //the focus keeps its value
+        assertEquals(500f, model.valueAt(500), DELTA);
+        assertEquals(500f, model.getIndicatorX(), DELTA);
+    }
+
+    @Test
+    public void zoom_keepsTheValueVisible() {
+        model.setValue(900);
+        model.zoom(4, 0);
+
+        assertTrue(model.getViewportMin() <= 900);
+        assertTrue(model.getViewportMax() >= 900);
+    }
+
+    @Test
+    public void zoom_limited() {
+        model.setMaxZoom(10);
+        model.zoom(100, 0);
+        assertEquals(10f, model.getZoom(), DELTA);
+
+        model.zoom(0.001f, 0);
+        assertFalse(model.isZoomed());
+    }
+
+    @Test
+    public void zoom_followsTheValue() {
+        model.setValue(500);
+        model.zoom(4, 500);
+
+        model.setValue(800);
+        assertTrue(model.getViewportMax() >= 800);
+        assertEquals(model.xOf(800), model.getIndicatorX(), DELTA);
+    }
+
+    @Test
+    public void panBy() {
+        model.setValue(500);
+        model.zoom(4, 500);
+
+        //a whole bar : a whole viewport
+        assertTrue(model.panBy(1000));
+        assertEquals(625f, model.getViewportMin(), DELTA);
+        assertEquals(875f, model.getViewportMax(), DELTA);
+        //the indicator stays, the value follows
+        assertEquals(500f, model.getIndicatorX(), DELTA);
+        assertEquals(750f, model.getValue(), DELTA);
+    }
+
+    @Test
+    public void panBy_stopsAtTheEnds() {
+        model.setValue(500);
+        model.zoom(4, 500);
+
+        assertTrue(model.panBy(100000));
+        assertEquals(1000f, model.getViewportMax(), DELTA);
+        assertFalse(model.panBy(10));
+
+        assertTrue(model.panBy(-100000));
+        assertEquals(0f, model.getViewportMin(), DELTA);
+        assertFalse(model.panBy(-10));
+    }
+
+    @Test
+    public void panBy_notZoomed() {
+        assertFalse(model.panBy(100));
+    }
+
+    @Test
+    public void setViewport() {
+        model.setValue(800);
+        model.setViewport(300, 200);
+
+        assertEquals(200f, model.getViewportMin(), DELTA);
+        assertEquals(300f, model.getViewportMax(), DELTA);
+        //moved inside
+        assertEquals(300f, model.getValue(), DELTA);
+
+        model.resetZoom();
+        assertFalse(model.isZoomed());
+        assertEquals(model.xOf(300), model.getIndicatorX(), DELTA);
+    }
+
+    @Test
+    public void visibleSteps() {
+        setSteps(100, 400, 500, 600, 900);
+        model.setValue(500);
+        model.zoom(4, 500);
+
+        //375..625
+        assertEquals(1, model.getFirstVisibleStep());
+        assertEquals(4, model.getVisibleStepEnd());
+        assertEquals(100f, model.getStepX(1), DELTA);
+    }
+
+    @Test
+    public void visibleSteps_onTheBounds() {
+        setSteps(250, 500, 750);
+        model.setViewport(250, 750);
+
+        assertEquals(0, model.getFirstVisibleStep());
+        assertEquals(3, model.getVisibleStepEnd());
+    }
+
+    @Test
+    public void visibleSteps_none() {
+        setSteps(100, 900);
+        model.setValue(500);
+        model.zoom(4, 500);
+
+        assertEquals(model.getFirstVisibleStep(), model.getVisibleStepEnd());
+    }
+
+    @Test
+    public void visibleSteps_notZoomed() {
+        setSteps(0, 500, 1000);
+
+        assertEquals(0, model.getFirstVisibleStep());
+        assertEquals(3, model.getVisibleStepEnd());
+    }
+
+    //endregion
+}
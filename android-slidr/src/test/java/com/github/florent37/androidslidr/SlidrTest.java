@@ -0,0 +1,110 @@
+package com.github.florent37.androidslidr;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class SlidrTest {
+
+    private static final int WIDTH = 1080;
+
+    private Slidr slidr;
+    private final Canvas canvas = new Canvas();
+
+    @Before
+    public void setUp() {
+        slidr = new Slidr(RuntimeEnvironment.application);
+        slidr.setMax(1000);
+        slidr.addStep(new Slidr.Step("first", 250, Color.BLUE, Color.RED));
+        layout(slidr);
+        slidr.onDraw(canvas);
+    }
+
+    private static void layout(View view) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+    }
+
+    //region steps
+
+    @Test
+    public void addStep_afterLayout() {
+        slidr.addStep(new Slidr.Step("second", 750, Color.GREEN, Color.RED));
+
+        //drawn before the next layout pass
+        slidr.onDraw(canvas);
+        assertEquals(2, slidr.model.getStepCount());
+        assertEquals(slidr.model.getStepX(0) * 3, slidr.model.getStepX(1), 1f);
+    }
+
+    @Test
+    public void addSteps_afterLayout() {
+        slidr.addStep(Arrays.asList(
+                new Slidr.Step("second", 500, Color.GREEN, Color.RED),
+                new Slidr.Step("third", 750, Color.GREEN, Color.RED)
+        ));
+
+        slidr.onDraw(canvas);
+        assertEquals(3, slidr.model.getStepCount());
+        assertEquals(slidr.model.getStepX(0) * 3, slidr.model.getStepX(2), 1f);
+    }
+
+    @Test
+    public void addStep_beforeFirst() {
+        final float firstX = slidr.model.getStepX(0);
+        slidr.addStep(new Slidr.Step("zero", 0, Color.GREEN, Color.RED));
+
+        //sorted : the first step moves to the second place
+        slidr.onDraw(canvas);
+        assertEquals(0f, slidr.model.getStepX(0), 0f);
+        assertEquals(firstX, slidr.model.getStepX(1), 0f);
+    }
+
+    //endregion
+
+    //region detach
+
+    @Test
+    public void detach_keepsStepLabels() {
+        final int[] formatCount = new int[1];
+        slidr.setTextFormatter(new Slidr.TextFormatter() {
+            @Override
+            public String format(float value) {
+                formatCount[0]++;
+                return String.valueOf(value);
+            }
+        });
+        slidr.addStepsAsync(Arrays.asList(new Slidr.Step("second", 750, Color.GREEN, Color.RED)), new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        }, null);
+        ShadowLooper.runUiThreadTasks();
+        slidr.onDraw(canvas);
+
+        final int drawnCount = formatCount[0];
+        slidr.onDetachedFromWindow();
+        layout(slidr);
+        slidr.onDraw(canvas);
+        assertEquals(drawnCount, formatCount[0]);
+    }
+
+    //endregion
+}
@@ -0,0 +1,55 @@
+package com.github.florent37.slidr;
+
+import android.os.Build;
+import android.os.Debug;
+
+/**
+ * Bytes allocated by the whole process since its start, read from the runtime stats (API 23+).
+ * Reading the stat allocates its text : that cost is measured once and removed from the deltas
+ */
+final class AllocatedBytes {
+
+    private static final String STAT = "art.gc.bytes-allocated";
+    private static final int CALIBRATION_READS = 8;
+
+    private static long readCost = -1;
+
+    private AllocatedBytes() {
+    }
+
+    static boolean isSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && Debug.getRuntimeStat(STAT) != null;
+    }
+
+    /**
+     * @return 0 if not supported
+     */
+    static long read() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            return 0;
+        }
+        final String stat = Debug.getRuntimeStat(STAT);
+        return stat != null ? Long.parseLong(stat) : 0;
+    }
+
+    /**
+     * Allocations between two reads, without the cost of the reads
+     */
+    static long between(long from, long to) {
+        return Math.max(0, to - from - getReadCost());
+    }
+
+    private static long getReadCost() {
+        if (readCost < 0) {
+            long cost = Long.MAX_VALUE;
+            long previous = read();
+            for (int i = 0; i < CALIBRATION_READS; ++i) {
+                final long current = read();
+                cost = Math.min(cost, current - previous);
+                previous = current;
+            }
+            readCost = Math.max(0, cost);
+        }
+        return readCost;
+    }
+}
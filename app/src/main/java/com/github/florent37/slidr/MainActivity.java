@@ -59,6 +59,9 @@ public class MainActivity extends AppCompatActivity {
                 slidr.setMax(5000);
                 slidr.setCurrentValue(5000);
                 slidr.addStep(new Slidr.Step("test", 1500, Color.parseColor("#007E90"), Color.parseColor("#111111")));
+                slidr.setFlingEnabled(true);
+                slidr.setSnapQuantum(100);
+                slidr.setZoomEnabled(true);
             }
         }
         {
@@ -0,0 +1,121 @@
+package com.github.florent37.slidr;
+
+import android.app.Activity;
+import android.graphics.Color;
+import android.os.SystemClock;
+import android.view.Gravity;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import java.util.Locale;
+
+/**
+ * Frame times and allocated bytes of an activity, displayed on top of it.
+ * Frames are timed between two draws of the window, allocations are counted between two frames (API 23+,
+ * whole process : background threads included) ; the overlay only refreshes its text twice per second,
+ * and does not count its own allocations
+ */
+public class PerfOverlay implements ViewTreeObserver.OnPreDrawListener {
+
+    private static final long REFRESH_MILLIS = 500;
+    //a frame longer than this missed at least one vsync
+    private static final float JANK_MILLIS = 16.7f * 1.5f;
+    //no drawing for this long : the window is idle, not janky
+    private static final long IDLE_MILLIS = 250;
+
+    private final TextView textView;
+
+    private long lastFrameNanos;
+    private long windowStartMillis;
+    private int frames;
+    private int janks;
+    private float sumFrameMillis;
+    private float worstFrameMillis;
+    private long lastAllocBytes;
+    private long allocBytes;
+    private long worstFrameAllocBytes;
+
+    private PerfOverlay(TextView textView) {
+        this.textView = textView;
+    }
+
+    public static PerfOverlay attach(Activity activity) {
+        final TextView textView = new TextView(activity);
+        textView.setBackgroundColor(0xAA000000);
+        textView.setTextColor(Color.WHITE);
+        textView.setTextSize(11);
+        textView.setPadding(12, 6, 12, 6);
+
+        final ViewGroup content = (ViewGroup) activity.findViewById(android.R.id.content);
+        content.addView(textView, new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.WRAP_CONTENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT,
+                Gravity.TOP | Gravity.END));
+
+        final PerfOverlay overlay = new PerfOverlay(textView);
+        overlay.reset();
+        content.getViewTreeObserver().addOnPreDrawListener(overlay);
+        return overlay;
+    }
+
+    public void detach() {
+        textView.getViewTreeObserver().removeOnPreDrawListener(this);
+    }
+
+    private void reset() {
+        windowStartMillis = SystemClock.uptimeMillis();
+        frames = 0;
+        janks = 0;
+        sumFrameMillis = 0;
+        worstFrameMillis = 0;
+        allocBytes = 0;
+        worstFrameAllocBytes = 0;
+        lastAllocBytes = AllocatedBytes.read();
+    }
+
+    @Override
+    public boolean onPreDraw() {
+        final long now = System.nanoTime();
+        final long allocated = AllocatedBytes.read();
+        if (lastFrameNanos != 0) {
+            final float frameMillis = (now - lastFrameNanos) / 1000000f;
+            if (frameMillis < IDLE_MILLIS) {
+                frames++;
+                sumFrameMillis += frameMillis;
+                worstFrameMillis = Math.max(worstFrameMillis, frameMillis);
+                if (frameMillis > JANK_MILLIS) {
+                    janks++;
+                }
+                final long frameAllocBytes = AllocatedBytes.between(lastAllocBytes, allocated);
+                allocBytes += frameAllocBytes;
+                worstFrameAllocBytes = Math.max(worstFrameAllocBytes, frameAllocBytes);
+            }
+        }
+        lastFrameNanos = now;
+        lastAllocBytes = allocated;
+
+        if (SystemClock.uptimeMillis() - windowStartMillis >= REFRESH_MILLIS) {
+            refresh();
+            //the text above allocates : start counting after it
+            reset();
+        }
+        return true;
+    }
+
+    private void refresh() {
+        final Runtime runtime = Runtime.getRuntime();
+        final long heapKb = (runtime.totalMemory() - runtime.freeMemory()) / 1024;
+        if (frames == 0) {
+            textView.setText(String.format(Locale.US, "idle\nheap %d kB", heapKb));
+            return;
+        }
+        final String frameTimes = String.format(Locale.US, "%d frames  avg %.1f ms  worst %.1f ms  jank %d",
+                frames, sumFrameMillis / frames, worstFrameMillis, janks);
+        final String allocations = AllocatedBytes.isSupported()
+                ? String.format(Locale.US, "allocated %d B / frame  worst %d B", allocBytes / frames, worstFrameAllocBytes)
+                : "allocated : API 23+";
+        textView.setText(String.format(Locale.US, "%s\n%s\nheap %d kB", frameTimes, allocations, heapKb));
+    }
+}
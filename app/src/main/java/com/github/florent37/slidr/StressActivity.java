@@ -0,0 +1,32 @@
+package com.github.florent37.slidr;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.support.annotation.Nullable;
+import android.support.v7.app.AppCompatActivity;
+import android.view.View;
+
+/**
+ * Entry point of the performance scenarios, each one displays its frame times and allocations
+ */
+public class StressActivity extends AppCompatActivity {
+
+    @Override
+    protected void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_stress);
+
+        open(R.id.stress_list, StressListActivity.class);
+        open(R.id.stress_steps, StressStepsActivity.class);
+        open(R.id.stress_meter, StressMeterActivity.class);
+    }
+
+    private void open(int buttonId, final Class<?> activity) {
+        findViewById(buttonId).setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                startActivity(new Intent(StressActivity.this, activity));
+            }
+        });
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.florent37.slidr;
+
+import android.graphics.Color;
+import android.os.Bundle;
+import android.support.annotation.Nullable;
+import android.support.v7.app.AppCompatActivity;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.github.florent37.androidslidr.Slidr;
+import com.github.florent37.androidslidr.Sushi;
+
+/**
+ * 1000 rows alternating slidrs and sushis, recycled while scrolling : binding, layout and drawing cost of a row
+ */
+public class StressListActivity extends AppCompatActivity {
+
+    private static final int ROW_COUNT = 1000;
+
+    private PerfOverlay perfOverlay;
+
+    @Override
+    protected void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_stress_list);
+
+        final RecyclerView recyclerView = (RecyclerView) findViewById(R.id.recycler);
+        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        recyclerView.setAdapter(new RowAdapter(ROW_COUNT));
+
+        perfOverlay = PerfOverlay.attach(this);
+    }
+
+    @Override
+    protected void onDestroy() {
+        perfOverlay.detach();
+        super.onDestroy();
+    }
+
+    private static class RowAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        private static final int TYPE_SLIDR = 0;
+        private static final int TYPE_SUSHI = 1;
+
+        //the value of each row survives its views
+        private final float[] values;
+
+        RowAdapter(int count) {
+            this.values = new float[count];
+            for (int i = 0; i < count; ++i) {
+                values[i] = (i * 37) % 1000;
+            }
+        }
+
+        @Override
+        public int getItemViewType(int position) {
+            return position % 3 == 2 ? TYPE_SUSHI : TYPE_SLIDR;
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            final LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+            if (viewType == TYPE_SUSHI) {
+                return new SushiHolder(inflater.inflate(R.layout.item_stress_sushi, parent, false));
+            }
+            return new SlidrHolder(inflater.inflate(R.layout.item_stress_slidr, parent, false), values);
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+            if (holder instanceof SlidrHolder) {
+                ((SlidrHolder) holder).bind(position, values[position]);
+            } else {
+                ((SushiHolder) holder).bind(values[position]);
+            }
+        }
+
+        @Override
+        public int getItemCount() {
+            return values.length;
+        }
+    }
+
+    private static class SlidrHolder extends RecyclerView.ViewHolder {
+
+        private final Slidr slidr;
+        private int position = RecyclerView.NO_POSITION;
+
+        SlidrHolder(View itemView, final float[] values) {
+            super(itemView);
+            this.slidr = (Slidr) itemView.findViewById(R.id.slidr);
+            slidr.setMax(1000);
+            slidr.addStep(new Slidr.Step("low", 300, Color.parseColor("#4CAF50"), Color.parseColor("#E91E63")));
+            slidr.addStep(new Slidr.Step("high", 700, Color.parseColor("#007E90"), Color.parseColor("#E91E63")));
+            slidr.setListener(new Slidr.Listener() {
+                @Override
+                public void valueChanged(Slidr slidr, float currentValue) {
+                    if (position != RecyclerView.NO_POSITION) {
+                        values[position] = currentValue;
+                    }
+                }
+
+                @Override
+                public void bubbleClicked(Slidr slidr) {
+
+                }
+            });
+        }
+
+        void bind(int position, float value) {
+            this.position = RecyclerView.NO_POSITION;
+            slidr.setCurrentValue(value);
+            this.position = position;
+        }
+    }
+
+    private static class SushiHolder extends RecyclerView.ViewHolder {
+
+        private final Sushi sushi;
+
+        SushiHolder(View itemView) {
+            super(itemView);
+            this.sushi = (Sushi) itemView.findViewById(R.id.sushi);
+            sushi.setMax(1000);
+        }
+
+        void bind(float value) {
+            sushi.setCurrentValue(value);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.florent37.slidr;
+
+import android.os.Bundle;
+import android.os.Process;
+import android.support.annotation.Nullable;
+import android.support.v7.app.AppCompatActivity;
+
+import com.github.florent37.androidslidr.Sushi;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A dashboard of sushis in meter mode, fed at 1 kHz each from one background thread.
+ * The samples are decimated to one value per frame, the main thread only sees one update per frame and per sushi
+ */
+public class StressMeterActivity extends AppCompatActivity {
+
+    private static final long SAMPLE_PERIOD_NANOS = 1000000; //1 kHz
+
+    private Sushi[] meters;
+    private volatile boolean running;
+    private Thread producer;
+    private PerfOverlay perfOverlay;
+
+    @Override
+    protected void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_stress_meter);
+
+        meters = new Sushi[]{
+                (Sushi) findViewById(R.id.meter1),
+                (Sushi) findViewById(R.id.meter2),
+                (Sushi) findViewById(R.id.meter3),
+                (Sushi) findViewById(R.id.meter4)
+        };
+        final Sushi.Decimation[] decimations = {Sushi.Decimation.MAX, Sushi.Decimation.MEAN, Sushi.Decimation.LAST, Sushi.Decimation.MAX};
+        for (int i = 0; i < meters.length; ++i) {
+            meters[i].setMax(1000);
+            meters[i].setMeterDecimation(decimations[i]);
+        }
+        meters[3].setPeakHold(true, 800, 400);
+
+        perfOverlay = PerfOverlay.attach(this);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        running = true;
+        producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                long next = System.nanoTime();
+                long sample = 0;
+                while (running) {
+                    for (int i = 0; i < meters.length; ++i) {
+                        //a few frequencies plus noise, no allocation
+                        final double t = sample / 1000.0;
+                        final float value = (float) (500 + 350 * Math.sin(t * (i + 1) * 0.7) + 100 * (Math.random() - 0.5));
+                        meters[i].pushSample(value);
+                    }
+                    sample++;
+                    next += SAMPLE_PERIOD_NANOS;
+                    final long wait = next - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+            }
+        }, "meter-producer");
+        producer.start();
+    }
+
+    @Override
+    protected void onPause() {
+        running = false;
+        try {
+            producer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        super.onPause();
+    }
+
+    @Override
+    protected void onDestroy() {
+        perfOverlay.detach();
+        super.onDestroy();
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.florent37.slidr;
+
+import android.graphics.Color;
+import android.os.Bundle;
+import android.support.annotation.Nullable;
+import android.support.v7.app.AppCompatActivity;
+import android.widget.TextView;
+
+import com.github.florent37.androidslidr.Slidr;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * One slidr with 5000 steps, prepared off the main thread. Zoom (pinch or long press) to see the steps,
+ * only the visible ones are drawn
+ */
+public class StressStepsActivity extends AppCompatActivity {
+
+    private static final int STEP_COUNT = 5000;
+    private static final float MAX = 10000000;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private PerfOverlay perfOverlay;
+
+    @Override
+    protected void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_stress_steps);
+
+        final TextView status = (TextView) findViewById(R.id.status);
+        final Slidr slidr = (Slidr) findViewById(R.id.slidr);
+        slidr.setMax(MAX);
+        slidr.setZoomEnabled(true);
+        slidr.setMaxZoom(5000);
+        slidr.setCurrentValue(MAX / 2);
+
+        final int[] colors = {Color.parseColor("#4CAF50"), Color.parseColor("#007E90"), Color.parseColor("#E91E63")};
+        final List<Slidr.Step> steps = new ArrayList<>(STEP_COUNT);
+        for (int i = 1; i <= STEP_COUNT; ++i) {
+            steps.add(new Slidr.Step("s" + i, i * (MAX / (STEP_COUNT + 1)), colors[i % colors.length]));
+        }
+
+        final long start = System.nanoTime();
+        status.setText(String.format(Locale.US, "preparing %d steps...", STEP_COUNT));
+        slidr.addStepsAsync(steps, executor, new Slidr.StepsListener() {
+            @Override
+            public void onStepsAdded(Slidr slidr, List<Slidr.Step> steps) {
+                status.setText(String.format(Locale.US, "%d steps in %d ms", steps.size(), (System.nanoTime() - start) / 1000000));
+            }
+        });
+
+        perfOverlay = PerfOverlay.attach(this);
+    }
+
+    @Override
+    protected void onDestroy() {
+        perfOverlay.detach();
+        executor.shutdownNow();
+        super.onDestroy();
+    }
+}